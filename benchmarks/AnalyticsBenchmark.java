@@ -0,0 +1,129 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Интеграл, среднее и производная на случайных отрезках: loop - проход по
+// точкам через getPointX/getPointY, как это делалось без декоратора, analytics -
+// AnalyticsTabulatedFunction над той же таблицей. setPointY и addPoint+deletePoint
+// показывают цену поддержки дерева при изменениях.
+//   java -jar benchmarks/target/benchmarks.jar AnalyticsBenchmark -p size=1000,100000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalyticsBenchmark {
+    static final int QUERIES = 1 << 12;
+
+    @Param({"loop", "analytics"})
+    public String variant;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private ArrayTabulatedFunction array;
+    private AnalyticsTabulatedFunction decorated;
+    private TabulatedFunction f;
+    // концы отрезков: пары случайных аргументов
+    private double[] ends;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        array = new ArrayTabulatedFunction(0, 1, OperationsBenchmark.values(size));
+        decorated = "analytics".equals(variant) ? new AnalyticsTabulatedFunction(array) : null;
+        f = decorated != null ? decorated : array;
+        SplittableRandom random = new SplittableRandom(5);
+        ends = new double[2 * QUERIES];
+        for (int i = 0; i < ends.length; i++) {
+            ends[i] = random.nextDouble();
+        }
+    }
+
+    private int next() {
+        return next++ & (QUERIES - 1);
+    }
+
+    @Benchmark
+    public double integrate() {
+        int i = next();
+        return decorated != null ? decorated.integrate(ends[2 * i], ends[2 * i + 1])
+                : integrate(array, ends[2 * i], ends[2 * i + 1]);
+    }
+
+    @Benchmark
+    public double mean() {
+        int i = next();
+        return decorated != null ? decorated.mean(ends[2 * i], ends[2 * i + 1])
+                : mean(array, ends[2 * i], ends[2 * i + 1]);
+    }
+
+    @Benchmark
+    public double derivative() {
+        double x = ends[next()];
+        return decorated != null ? decorated.derivative(x) : derivative(array, x);
+    }
+
+    @Benchmark
+    public double getFunctionValue() {
+        return f.getFunctionValue(ends[next()]);
+    }
+
+    @Benchmark
+    public void setPointY() {
+        int i = next();
+        f.setPointY((int) (ends[i] * (size - 1)), i);
+    }
+
+    // вставка и удаление в одной операции: размер таблицы не меняется
+    @Benchmark
+    public int addPointDeletePoint() {
+        double x = ends[next()];
+        int count = f.getPointsCount();
+        try {
+            f.addPoint(new FunctionPoint(x, x));
+        } catch (InappropriateFunctionPointException e) {
+            return 0;
+        }
+        f.deletePoint((int) (x * (count - 1)) + 1);
+        return count;
+    }
+
+    // трапеции по всем точкам, обрезанные по [a, b]
+    static double integrate(TabulatedFunction f, double a, double b) {
+        if (a > b) {
+            return -integrate(f, b, a);
+        }
+        double sum = 0;
+        for (int i = 0; i < f.getPointsCount() - 1; i++) {
+            double x1 = f.getPointX(i);
+            double x2 = f.getPointX(i + 1);
+            double lo = Math.max(a, x1);
+            double hi = Math.min(b, x2);
+            if (lo < hi) {
+                double y1 = f.getPointY(i);
+                double k = (f.getPointY(i + 1) - y1) / (x2 - x1);
+                sum += (hi - lo) * (y1 + k * (lo - x1) + y1 + k * (hi - x1)) / 2;
+            }
+        }
+        return sum;
+    }
+
+    static double mean(TabulatedFunction f, double a, double b) {
+        return a == b ? f.getFunctionValue(a) : integrate(f, a, b) / (b - a);
+    }
+
+    static double derivative(TabulatedFunction f, double x) {
+        for (int i = 0; i < f.getPointsCount() - 1; i++) {
+            if (x <= f.getPointX(i + 1)) {
+                return (f.getPointY(i + 1) - f.getPointY(i)) / (f.getPointX(i + 1) - f.getPointX(i));
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// getFunctionValue с кэшем CachingTabulatedFunction и без него.
+// grid - случайный выбор из 256 фиксированных аргументов (повторяющиеся
+// запросы), random - каждый аргумент новый (только промахи, цена кэша).
+//   java -jar benchmarks/target/benchmarks.jar CacheBenchmark -p size=1000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheBenchmark {
+    static final String GRID = "grid";
+    static final int GRID_SIZE = 256;
+    static final int LOOKUPS = 1 << 16;
+
+    @Param({"plain", "cached"})
+    public String variant;
+
+    @Param({"array", "list"})
+    public String implementation;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({GRID, OperationsBenchmark.RANDOM})
+    public String pattern;
+
+    private TabulatedFunction measured;
+    private double[] lookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] values = OperationsBenchmark.values(size);
+        TabulatedFunction function = "list".equals(implementation)
+                ? new LinkedListTabulatedFunction(0, 1, values) : new ArrayTabulatedFunction(0, 1, values);
+        measured = "cached".equals(variant) ? new CachingTabulatedFunction(function) : function;
+
+        SplittableRandom random = new SplittableRandom(11);
+        double[] grid = new double[GRID_SIZE];
+        for (int i = 0; i < GRID_SIZE; i++) {
+            grid[i] = random.nextDouble();
+        }
+        lookups = new double[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = GRID.equals(pattern) ? grid[random.nextInt(GRID_SIZE)] : random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public double getFunctionValue() {
+        return measured.getFunctionValue(lookups[next++ & (LOOKUPS - 1)]);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Синхронизация реплики через ChangeLogTabulatedFunction: k вызовов setPointY
+// в случайных точках источника, drain() и replay() пакета на реплике. Время -
+// на одну синхронизацию. repeat - k изменений одной точки, слитых в одну запись.
+//   java -jar benchmarks/target/benchmarks.jar ChangeLogBenchmark
+// main печатает для тех же k размер пакета рядом с размером всей таблицы в
+// двоичном формате TabulatedFunctionIO (64 + 16n байт), который пришлось бы
+// пересылать без журнала:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.ChangeLogBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChangeLogBenchmark {
+    static final String REPEAT = "repeat";
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"1", "16", "256"})
+    public int k;
+
+    @Param({OperationsBenchmark.RANDOM, REPEAT})
+    public String pattern;
+
+    private ChangeLogTabulatedFunction source;
+    private ChangeLogTabulatedFunction replica;
+    private SplittableRandom random;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] values = OperationsBenchmark.values(size);
+        source = new ChangeLogTabulatedFunction(new ArrayTabulatedFunction(0, 1, values));
+        replica = new ChangeLogTabulatedFunction(new ArrayTabulatedFunction(0, 1, values));
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int sync() throws Exception {
+        return sync(source, replica, random, size, k, REPEAT.equals(pattern), iteration++);
+    }
+
+    // результат - размер пакета в байтах
+    static int sync(ChangeLogTabulatedFunction source, ChangeLogTabulatedFunction replica,
+                    SplittableRandom random, int size, int k, boolean repeat, int iteration) throws Exception {
+        int index = random.nextInt(size);
+        for (int i = 0; i < k; i++) {
+            source.setPointY(repeat ? index : random.nextInt(size), iteration + i);
+        }
+        byte[] delta = source.drain();
+        replica.replay(delta);
+        return delta.length;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%10s %6s %-10s %12s %12s%n", "points", "k", "pattern", "delta B", "table B");
+        for (int size : new int[]{10000, 1000000}) {
+            double[] values = OperationsBenchmark.values(size);
+            ChangeLogTabulatedFunction source = new ChangeLogTabulatedFunction(new ArrayTabulatedFunction(0, 1, values));
+            ChangeLogTabulatedFunction replica = new ChangeLogTabulatedFunction(new ArrayTabulatedFunction(0, 1, values));
+            SplittableRandom random = new SplittableRandom(42);
+            for (int k : new int[]{1, 16, 256}) {
+                for (String pattern : new String[]{OperationsBenchmark.RANDOM, REPEAT}) {
+                    int length = sync(source, replica, random, size, k, REPEAT.equals(pattern), 0);
+                    System.out.printf("%10d %6d %-10s %12d %12d%n", size, k, pattern, length, 64 + 16L * size);
+                }
+            }
+        }
+    }
+}
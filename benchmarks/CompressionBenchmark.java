@@ -0,0 +1,162 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Сжатое хранение архивных таблиц: скорость чтения CompressedTabulatedFunction
+// против ArrayTabulatedFunction на тех же точках и время сжатия copyOf.
+// sine - равномерная сетка и синус (Y без повторов, худший случай для XOR),
+// sensor - равномерная сетка и показания с точностью 0.01, timestamps - X в
+// целых секундах с пропусками и ступенчатые Y.
+//   java -jar benchmarks/target/benchmarks.jar CompressionBenchmark
+// main печатает память под точки и степень сжатия:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.CompressionBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+    static final int LOOKUPS = 1 << 12;
+
+    @State(Scope.Thread)
+    public static class Data {
+        @Param({"10000", "1000000"})
+        public int size;
+
+        @Param({"sine", "sensor", "timestamps"})
+        public String pattern;
+
+        ArrayTabulatedFunction array;
+
+        @Setup(Level.Trial)
+        public void setup() throws InappropriateFunctionPointException {
+            array = table(size, pattern);
+            prepare();
+        }
+
+        void prepare() {
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader extends Data {
+        @Param({"array", "compressed"})
+        public String implementation;
+
+        TabulatedFunction f;
+        double[] lookups;
+        int[] indices;
+        // упорядоченная выборка из 1024 аргументов по всей области
+        double[] batch;
+        double[] out;
+        final OperationsBenchmark.Sum sum = new OperationsBenchmark.Sum();
+        int next;
+
+        @Override
+        void prepare() {
+            f = "compressed".equals(implementation) ? CompressedTabulatedFunction.copyOf(array) : array;
+            double left = f.getLeftDomainBorder();
+            double width = f.getRightDomainBorder() - left;
+            SplittableRandom random = new SplittableRandom(7);
+            lookups = new double[LOOKUPS];
+            indices = new int[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookups[i] = left + random.nextDouble() * width;
+                indices[i] = random.nextInt(size);
+            }
+            batch = new double[1024];
+            out = new double[batch.length];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = left + (i + 0.5) * width / batch.length;
+            }
+        }
+
+        int next() {
+            return next++ & (LOOKUPS - 1);
+        }
+    }
+
+    @Benchmark
+    public double getFunctionValue(Reader reader) {
+        return reader.f.getFunctionValue(reader.lookups[reader.next()]);
+    }
+
+    // время на вызов для всех 1024 аргументов
+    @Benchmark
+    public double[] getFunctionValues(Reader reader) {
+        reader.f.getFunctionValues(reader.batch, reader.out);
+        return reader.out;
+    }
+
+    @Benchmark
+    public double getPointY(Reader reader) {
+        return reader.f.getPointY(reader.indices[reader.next()]);
+    }
+
+    @Benchmark
+    public double forEachPoint(Reader reader) {
+        return OperationsBenchmark.forEachPoint(reader.f, reader.sum);
+    }
+
+    @Benchmark
+    public CompressedTabulatedFunction copyOf(Data data) {
+        return CompressedTabulatedFunction.copyOf(data.array);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%10s %-12s %14s %14s %10s %10s%n",
+                "points", "pattern", "array bytes", "compressed", "bits/point", "ratio");
+        for (int size : new int[]{10000, 1000000}) {
+            for (String pattern : new String[]{"sine", "sensor", "timestamps"}) {
+                CompressedTabulatedFunction compressed = CompressedTabulatedFunction.copyOf(table(size, pattern));
+                // массивы ArrayTabulatedFunction: по 10 точек запаса и заголовки двух массивов
+                long arrayBytes = 16L * (size + 10) + 32;
+                long compressedBytes = compressed.getCompressedBytes();
+                System.out.printf("%10d %-12s %14d %14d %10.2f %10.1f%n", size, pattern,
+                        arrayBytes, compressedBytes, compressedBytes * 8.0 / size,
+                        (double) arrayBytes / compressedBytes);
+            }
+        }
+    }
+
+    private static ArrayTabulatedFunction table(int size, String pattern) throws InappropriateFunctionPointException {
+        if ("sine".equals(pattern)) {
+            return new ArrayTabulatedFunction(0, 1, OperationsBenchmark.values(size));
+        }
+        SplittableRandom random = new SplittableRandom(3);
+        if ("sensor".equals(pattern)) {
+            // случайное блуждание, округленное до сотых
+            double[] values = new double[size];
+            double level = 20;
+            for (int i = 0; i < size; i++) {
+                level += (random.nextDouble() - 0.5) * 0.1;
+                values[i] = Math.round(level * 100) / 100.0;
+            }
+            return new ArrayTabulatedFunction(0, size - 1, values);
+        }
+        // раз в 100 отсчетов пропуск до минуты, значение держится 10-20 отсчетов
+        ArrayTabulatedFunction f = new ArrayTabulatedFunction(0, size - 1, size);
+        double[] xs = new double[size];
+        double x = 1_700_000_000;
+        double y = 0;
+        int hold = 0;
+        for (int i = 0; i < size; i++) {
+            if (hold-- == 0) {
+                y = random.nextInt(1000);
+                hold = 10 + random.nextInt(11);
+            }
+            f.setPointY(i, y);
+            xs[i] = x;
+            x += random.nextInt(100) == 0 ? 1 + random.nextInt(60) : 1;
+        }
+        // X задаются с конца: новые X больше исходных, и порядок не нарушается
+        for (int i = size - 1; i >= 0; i--) {
+            f.setPointX(i, xs[i]);
+        }
+        return f;
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Масштабирование чтения общей таблицы с числом потоков: вызовы
+// getFunctionValue в секунду для ConcurrentTabulatedFunction и для
+// ArrayTabulatedFunction под общей блокировкой. read - только читатели,
+// число потоков задается -t; readWrite - читатели (-tg N,1) и один поток,
+// который все время меняет таблицу через setPointY.
+//   java -jar benchmarks/target/benchmarks.jar ConcurrentReadBenchmark.read -t 8
+//   java -jar benchmarks/target/benchmarks.jar ConcurrentReadBenchmark.readWrite -tg 8,1
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentReadBenchmark {
+    @Param({"concurrent", "synchronized"})
+    public String implementation;
+
+    @Param({"1000000"})
+    public int size;
+
+    private TabulatedFunction f;
+    private boolean locked;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] values = OperationsBenchmark.values(size);
+        locked = "synchronized".equals(implementation);
+        f = locked ? new ArrayTabulatedFunction(0, 1, values) : new ConcurrentTabulatedFunction(0, 1, values);
+    }
+
+    @Benchmark
+    public double read() {
+        return get(ThreadLocalRandom.current().nextDouble());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    public double reader() {
+        return get(ThreadLocalRandom.current().nextDouble());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(size);
+        if (locked) {
+            synchronized (f) {
+                f.setPointY(index, random.nextDouble());
+            }
+        } else {
+            f.setPointY(index, random.nextDouble());
+        }
+    }
+
+    private double get(double x) {
+        if (locked) {
+            synchronized (f) {
+                return f.getFunctionValue(x);
+            }
+        }
+        return f.getFunctionValue(x);
+    }
+}
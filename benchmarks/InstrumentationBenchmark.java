@@ -0,0 +1,53 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Цена учета метрик: ArrayTabulatedFunction без декоратора, в
+// InstrumentedTabulatedFunction с выключенным учетом и с включенным.
+// getFunctionValue - случайный аргумент, getFunctionValues - 1024 случайных
+// аргумента за вызов.
+//   java -jar benchmarks/target/benchmarks.jar InstrumentationBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+    @Param({"plain", "disabled", "enabled"})
+    public String variant;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private TabulatedFunction measured;
+    private double[] arguments;
+    private double[] out;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        measured = new ArrayTabulatedFunction(0, 1, OperationsBenchmark.values(size));
+        if (!"plain".equals(variant)) {
+            InstrumentedTabulatedFunction instrumented = new InstrumentedTabulatedFunction(measured);
+            instrumented.setEnabled("enabled".equals(variant));
+            measured = instrumented;
+        }
+        arguments = VectorBenchmark.arguments(OperationsBenchmark.RANDOM);
+        out = new double[arguments.length];
+    }
+
+    @Benchmark
+    public double getFunctionValue() {
+        return measured.getFunctionValue(arguments[next++ & (VectorBenchmark.ARGUMENTS - 1)]);
+    }
+
+    @Benchmark
+    public double[] getFunctionValues() {
+        measured.getFunctionValues(arguments, out);
+        return out;
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Конвейер (f + g) * 0.5 - h на сетке из N точек: eager - каждая промежуточная
+// функция строится отдельной таблицей циклом по getPointX/getPointY, lazy -
+// выражение LazyFunction, вычисленное одним проходом при tabulate.
+// Время и память (-prof gc) - на весь конвейер.
+//   java -jar benchmarks/target/benchmarks.jar LazyBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class LazyBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private TabulatedFunction f;
+    private TabulatedFunction g;
+    private TabulatedFunction h;
+    private LazyFunction pipeline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] values = OperationsBenchmark.values(size);
+        f = new ArrayTabulatedFunction(0, 1, values);
+        g = new ArrayTabulatedFunction(0, 1, values);
+        h = new ArrayTabulatedFunction(0, 1, values);
+        pipeline = LazyFunction.of(f).plus(g).times(0.5).minus(h);
+    }
+
+    @Benchmark
+    public TabulatedFunction eager() {
+        int count = f.getPointsCount();
+        double[] sum = new double[count];
+        for (int i = 0; i < count; i++) {
+            sum[i] = f.getPointY(i) + g.getFunctionValue(f.getPointX(i));
+        }
+        TabulatedFunction s = new ArrayTabulatedFunction(0, 1, sum);
+
+        double[] half = new double[count];
+        for (int i = 0; i < count; i++) {
+            half[i] = s.getPointY(i) * 0.5;
+        }
+        TabulatedFunction t = new ArrayTabulatedFunction(0, 1, half);
+
+        double[] result = new double[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = t.getPointY(i) - h.getFunctionValue(t.getPointX(i));
+        }
+        return new ArrayTabulatedFunction(0, 1, result);
+    }
+
+    @Benchmark
+    public TabulatedFunction lazy() {
+        return pipeline.tabulate(0, 1, size);
+    }
+}
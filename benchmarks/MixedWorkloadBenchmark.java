@@ -0,0 +1,79 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Смешанная нагрузка на таблицу: чтения (getFunctionValue в случайной точке
+// и getPointY по случайному номеру поровну) вперемешку с изменениями в
+// случайном месте (addPoint и deletePoint по очереди, размер таблицы не
+// меняется). read90 - 10% изменений, write50 - 50%. Время - среднее на
+// операцию.
+//   java -jar benchmarks/target/benchmarks.jar MixedWorkloadBenchmark -p implementation=array,block
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MixedWorkloadBenchmark {
+    @Param({"array", "list", "block"})
+    public String implementation;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"read90", "write50"})
+    public String pattern;
+
+    private TabulatedFunction f;
+    private int writePercent;
+    private SplittableRandom random;
+    private boolean insertNext = true;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] values = OperationsBenchmark.values(size);
+        switch (implementation) {
+            case "array":
+                f = new ArrayTabulatedFunction(0, 1, values);
+                break;
+            case "list":
+                f = new LinkedListTabulatedFunction(0, 1, values);
+                break;
+            case "block":
+                f = new BlockTabulatedFunction(0, 1, values);
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестная реализация: " + implementation);
+        }
+        writePercent = "write50".equals(pattern) ? 50 : 10;
+        random = new SplittableRandom(23);
+    }
+
+    @Benchmark
+    public double mixed() {
+        if (random.nextInt(100) < writePercent) {
+            if (insertNext) {
+                try {
+                    // граничные точки не меняются, чтобы область определения оставалась [0, 1]
+                    f.addPoint(new FunctionPoint(0.001 + random.nextDouble() * 0.998, 0));
+                } catch (InappropriateFunctionPointException e) {
+                    // совпадение X случайных точек: операция пропускается
+                    return 0;
+                }
+            } else {
+                f.deletePoint(1 + random.nextInt(f.getPointsCount() - 2));
+            }
+            insertNext = !insertNext;
+            return f.getPointsCount();
+        }
+        if ((iteration++ & 1) == 0) {
+            return f.getFunctionValue(random.nextDouble());
+        }
+        return f.getPointY(random.nextInt(f.getPointsCount()));
+    }
+}
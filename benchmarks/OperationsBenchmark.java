@@ -0,0 +1,266 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Время операций TabulatedFunction для каждой реализации, размера таблицы
+// и порядка доступа (случайный / последовательный); память на операцию -
+// профилировщик gc:
+//   java -jar benchmarks/target/benchmarks.jar OperationsBenchmark -prof gc
+//   java -jar benchmarks/target/benchmarks.jar OperationsBenchmark -p implementation=array,list -p size=1000
+// Для добавления и удаления таблица перед каждым вызовом возвращается к
+// исходному состоянию вне замера; UniformTabulatedFunction, которую вставка в
+// середину отрезка или удаление внутренней точки переводят на неравномерную
+// сетку, строится заново. Восстановление выделяет память, и -prof gc для этих
+// строк учитывает ее вместе с операцией.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OperationsBenchmark {
+    static final String RANDOM = "random";
+    static final String SEQUENTIAL = "sequential";
+
+    // число заранее подготовленных индексов и аргументов
+    static final int ACCESSES = 4096;
+
+    @State(Scope.Thread)
+    public static class Table {
+        @Param({"array", "list", "uniform"})
+        public String implementation;
+
+        @Param({"10", "1000", "100000", "10000000"})
+        public int size;
+
+        double[] values;
+        TabulatedFunction f;
+        final Sum sum = new Sum();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            values = values(size);
+            f = create();
+            prepare();
+        }
+
+        // подготовка производных состояний после построения таблицы
+        void prepare() {
+        }
+
+        TabulatedFunction create() {
+            switch (implementation) {
+                case "array":
+                    return new ArrayTabulatedFunction(0, 1, values);
+                case "list":
+                    return new LinkedListTabulatedFunction(0, 1, values);
+                case "uniform":
+                    return new UniformTabulatedFunction(0, 1, values);
+                default:
+                    throw new IllegalArgumentException("Неизвестная реализация: " + implementation);
+            }
+        }
+    }
+
+    // индексы и аргументы заранее: генератор не должен попадать в замер.
+    // Состояния расширяют Table, а не получают ее параметром: JMH создал бы
+    // для каждого такого параметра свою таблицу
+    @State(Scope.Thread)
+    public static class Access extends Table {
+        @Param({RANDOM, SEQUENTIAL})
+        public String pattern;
+
+        double[] xs;
+        int[] points;
+        int[] segments;
+        int[] interior;
+        int next;
+
+        @Override
+        void prepare() {
+            int count = f.getPointsCount();
+            xs = new double[ACCESSES];
+            SplittableRandom random = new SplittableRandom(7);
+            for (int i = 0; i < ACCESSES; i++) {
+                xs[i] = RANDOM.equals(pattern) ? random.nextDouble() : (double) i / ACCESSES;
+            }
+            points = indices(count, 0);
+            segments = indices(count - 1, 0);
+            interior = indices(count - 2, 1);
+        }
+
+        private int[] indices(int bound, int first) {
+            int[] indices = new int[ACCESSES];
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < ACCESSES; i++) {
+                indices[i] = first + (RANDOM.equals(pattern) ? random.nextInt(bound) : i % bound);
+            }
+            return indices;
+        }
+
+        int next() {
+            return next++ & (ACCESSES - 1);
+        }
+    }
+
+    // точка добавляется в середину отрезка, перед следующим вызовом удаляется
+    @State(Scope.Thread)
+    public static class Insertion extends Access {
+        FunctionPoint[] inserted;
+        FunctionPoint point;
+        int added = -1;
+
+        @Override
+        void prepare() {
+            super.prepare();
+            inserted = new FunctionPoint[ACCESSES];
+            for (int i = 0; i < ACCESSES; i++) {
+                int segment = segments[i];
+                inserted[i] = new FunctionPoint((f.getPointX(segment) + f.getPointX(segment + 1)) / 2, 0);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void restore() {
+            if (f instanceof UniformTabulatedFunction) {
+                f = create();
+            } else if (added >= 0) {
+                f.deletePoint(added);
+            }
+            int i = next();
+            point = inserted[i];
+            added = segments[i] + 1;
+        }
+    }
+
+    // удаленная точка возвращается перед следующим вызовом
+    @State(Scope.Thread)
+    public static class Deletion extends Access {
+        FunctionPoint[] removed;
+        FunctionPoint deleted;
+        int index;
+
+        @Override
+        void prepare() {
+            super.prepare();
+            removed = new FunctionPoint[ACCESSES];
+            for (int i = 0; i < ACCESSES; i++) {
+                removed[i] = f.getPoint(interior[i]);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void restore() throws InappropriateFunctionPointException {
+            if (f instanceof UniformTabulatedFunction) {
+                f = create();
+            } else if (deleted != null) {
+                f.addPoint(deleted);
+            }
+            int i = next();
+            deleted = removed[i];
+            index = interior[i];
+        }
+    }
+
+    // массивы для выгрузки
+    @State(Scope.Thread)
+    public static class Copy extends Table {
+        double[] xs;
+        double[] ys;
+
+        @Override
+        void prepare() {
+            xs = new double[size];
+            ys = new double[size];
+        }
+    }
+
+    @Benchmark
+    public double getFunctionValue(Access access) {
+        return access.f.getFunctionValue(access.xs[access.next()]);
+    }
+
+    @Benchmark
+    public FunctionPoint getPoint(Access access) {
+        return access.f.getPoint(access.points[access.next()]);
+    }
+
+    // X точки заменяется на тот же X: таблица не меняется, измеряется
+    // доступ к точке и проверка упорядоченности
+    @Benchmark
+    public void setPointX(Access access) throws InappropriateFunctionPointException {
+        int index = access.points[access.next()];
+        access.f.setPointX(index, access.f.getPointX(index));
+    }
+
+    @Benchmark
+    public void addPoint(Insertion insertion) throws InappropriateFunctionPointException {
+        insertion.f.addPoint(insertion.point);
+    }
+
+    @Benchmark
+    public void deletePoint(Deletion deletion) {
+        deletion.f.deletePoint(deletion.index);
+    }
+
+    // полный обход; время операции - обход всей таблицы
+    @Benchmark
+    public double iteration(Table table) {
+        TabulatedFunction f = table.f;
+        double sum = 0;
+        int count = f.getPointsCount();
+        for (int i = 0; i < count; i++) {
+            sum += f.getPointX(i) + f.getPointY(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double forEachPoint(Table table) {
+        return forEachPoint(table.f, table.sum);
+    }
+
+    @Benchmark
+    public double cursor(Table table) {
+        double sum = 0;
+        PointCursor cursor = table.f.cursor();
+        while (cursor.next()) {
+            sum += cursor.getX() + cursor.getY();
+        }
+        return sum;
+    }
+
+    // выгрузка в заранее выделенные массивы
+    @Benchmark
+    public double copy(Copy copy) {
+        copy.f.copyXs(copy.xs);
+        copy.f.copyYs(copy.ys);
+        return copy.xs[0] + copy.ys[0];
+    }
+
+    static double[] values(int size) {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.sin(i * 0.001);
+        }
+        return values;
+    }
+
+    // полный обход через forEachPoint; сумма копится в поле переиспользуемого объекта
+    static double forEachPoint(TabulatedFunction f, Sum sum) {
+        sum.value = 0;
+        f.forEachPoint(sum);
+        return sum.value;
+    }
+
+    static final class Sum implements DoubleBiConsumer {
+        double value;
+
+        public void accept(double x, double y) {
+            value += x + y;
+        }
+    }
+}
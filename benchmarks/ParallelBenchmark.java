@@ -0,0 +1,98 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Масштабирование ParallelTabulation с числом потоков: вычисление значений
+// для большого массива случайных и упорядоченных аргументов, построение
+// таблицы и преобразование ординат. threads=0 - те же операции в одном потоке
+// без ForkJoinPool (mapY - циклом по setPointY).
+//   java -Xmx8g -jar benchmarks/target/benchmarks.jar ParallelBenchmark -p threads=0,1,2,4,8,16,32,64 -p queries=100000000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+    @Param({"0", "1", "4"})
+    public int threads;
+
+    @Param({"1000000"})
+    public int size;
+
+    private double[] values;
+    private ArrayTabulatedFunction function;
+    private ForkJoinPool pool;
+    private ParallelTabulation parallel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        values = OperationsBenchmark.values(size);
+        function = new ArrayTabulatedFunction(0, 1, values);
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            parallel = new ParallelTabulation(pool, ParallelTabulation.DEFAULT_THRESHOLD);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // аргументы для getFunctionValues
+    @State(Scope.Benchmark)
+    public static class Arguments {
+        @Param({"10000000"})
+        public int queries;
+
+        @Param({"random", "sorted"})
+        public String pattern;
+
+        double[] xs;
+        double[] out;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            xs = new double[queries];
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < queries; i++) {
+                xs[i] = "sorted".equals(pattern) ? (double) i / queries : random.nextDouble();
+            }
+            out = new double[queries];
+        }
+    }
+
+    @Benchmark
+    public double[] getFunctionValues(Arguments arguments) {
+        if (parallel != null) {
+            parallel.getFunctionValues(function, arguments.xs, arguments.out);
+        } else {
+            function.getFunctionValues(arguments.xs, arguments.out);
+        }
+        return arguments.out;
+    }
+
+    @Benchmark
+    public ArrayTabulatedFunction tabulate() {
+        return parallel != null ? parallel.tabulate(0, 1, values) : new ArrayTabulatedFunction(0, 1, values);
+    }
+
+    @Benchmark
+    public void mapY() {
+        if (parallel != null) {
+            parallel.mapY(function, y -> -y);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            function.setPointY(i, -function.getPointY(i));
+        }
+    }
+}
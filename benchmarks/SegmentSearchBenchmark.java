@@ -0,0 +1,69 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Поиск отрезка в ArrayTabulatedFunction на неравномерной сетке при случайных
+// аргументах: getFunctionValue по одному аргументу (аргументы берутся из 2^20
+// случайных, чтобы путь поиска в большой таблице не оставался в кэше) и
+// getFunctionValues для 1024 случайных аргументов. "frozen" - прежний бинарный поиск с погрешностью
+// (FrozenTabulatedFunction), остальные - способы SegmentSearch. Время
+// построения индекса в замер не входит.
+//   java -jar benchmarks/target/benchmarks.jar SegmentSearchBenchmark -p size=1000,10000000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SegmentSearchBenchmark {
+    static final int LOOKUPS = 1 << 20;
+
+    @Param({"frozen", "binary", "eytzinger", "learned"})
+    public String strategy;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private TabulatedFunction function;
+    private double[] lookups;
+    private double[] arguments;
+    private double[] out;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction array =
+                (ArrayTabulatedFunction) VectorBenchmark.irregular(OperationsBenchmark.values(size));
+        if ("frozen".equals(strategy)) {
+            function = array.freeze();
+        } else {
+            array.setSegmentSearch(SegmentSearch.valueOf(strategy.toUpperCase()));
+            function = array;
+        }
+        // первый поиск строит индекс
+        function.getFunctionValue(0.5);
+
+        lookups = new double[LOOKUPS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = random.nextDouble();
+        }
+        arguments = VectorBenchmark.arguments(OperationsBenchmark.RANDOM);
+        out = new double[arguments.length];
+    }
+
+    @Benchmark
+    public double getFunctionValue() {
+        return function.getFunctionValue(lookups[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public double[] getFunctionValues() {
+        function.getFunctionValues(arguments, out);
+        return out;
+    }
+}
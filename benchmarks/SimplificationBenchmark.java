@@ -0,0 +1,110 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Упрощение таблицы показаний датчика с заданной погрешностью: smooth - гладкая
+// синусоида, noisy - она же с шумом амплитуды 1e-3. Замеряется упрощение всей
+// таблицы SimplifyingFilter.simplify и getFunctionValue в случайной точке до
+// упрощения (maxError=0) и после.
+//   java -jar benchmarks/target/benchmarks.jar SimplificationBenchmark -p maxError=0.001
+// main печатает, сколько точек осталось и наибольшую погрешность в исходных узлах:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.SimplificationBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimplificationBenchmark {
+    static final int[] SIZES = {100000, 1000000};
+    static final String[] PATTERNS = {"smooth", "noisy"};
+    static final String[] ERRORS = {"0.0001", "0.001", "0.01"};
+
+    @State(Scope.Thread)
+    public static class Samples {
+        @Param({"100000", "1000000"})
+        public int size;
+
+        @Param({"smooth", "noisy"})
+        public String pattern;
+
+        ArrayTabulatedFunction f;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            f = new ArrayTabulatedFunction(0, 1, samples(size, "noisy".equals(pattern)));
+            prepare();
+        }
+
+        void prepare() {
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Filter {
+        @Param({"0.0001", "0.001", "0.01"})
+        public double maxError;
+    }
+
+    // maxError=0 - исходная таблица
+    @State(Scope.Thread)
+    public static class Reader extends Samples {
+        @Param({"0", "0.0001", "0.001", "0.01"})
+        public double maxError;
+
+        ArrayTabulatedFunction simplified;
+        double[] lookups;
+        int next;
+
+        @Override
+        void prepare() {
+            simplified = maxError == 0 ? f : SimplifyingFilter.simplify(f, maxError);
+            SplittableRandom random = new SplittableRandom(7);
+            lookups = new double[1 << 12];
+            for (int i = 0; i < lookups.length; i++) {
+                lookups[i] = random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public ArrayTabulatedFunction simplify(Samples samples, Filter filter) {
+        return SimplifyingFilter.simplify(samples.f, filter.maxError);
+    }
+
+    @Benchmark
+    public double getFunctionValue(Reader reader) {
+        return reader.simplified.getFunctionValue(reader.lookups[reader.next++ & (reader.lookups.length - 1)]);
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %-10s %10s %12s %12s%n", "points", "pattern", "maxError", "kept", "max error");
+        for (int count : SIZES) {
+            for (String pattern : PATTERNS) {
+                ArrayTabulatedFunction f = new ArrayTabulatedFunction(0, 1, samples(count, "noisy".equals(pattern)));
+                for (String error : ERRORS) {
+                    ArrayTabulatedFunction simplified = SimplifyingFilter.simplify(f, Double.parseDouble(error));
+                    double worst = 0;
+                    for (int i = 0; i < count; i++) {
+                        worst = Math.max(worst, Math.abs(simplified.getFunctionValue(f.getPointX(i)) - f.getPointY(i)));
+                    }
+                    System.out.printf("%10d %-10s %10s %12d %12.3e%n",
+                            count, pattern, error, simplified.getPointsCount(), worst);
+                }
+            }
+        }
+    }
+
+    // синусоида из 20 периодов с шумом или без
+    private static double[] samples(int size, boolean noisy) {
+        SplittableRandom random = new SplittableRandom(3);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.sin(40 * Math.PI * i / (size - 1)) + (noisy ? (random.nextDouble() - 0.5) * 2e-3 : 0);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import functions.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Вычисление набора значений getFunctionValues скалярным и векторным ядром
+// интерполяции на равномерной (UniformTabulatedFunction) и неравномерной
+// (ArrayTabulatedFunction) сетке. Время - на один вызов для 1024 аргументов,
+// упорядоченных или случайных. Векторное ядро входит в benchmarks.jar,
+// собранный JDK 21 и новее.
+//   java -jar benchmarks/target/benchmarks.jar VectorBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class VectorBenchmark {
+    static final int ARGUMENTS = 1024;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"uniform", "array"})
+    public String grid;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({OperationsBenchmark.RANDOM, OperationsBenchmark.SEQUENTIAL})
+    public String pattern;
+
+    private TabulatedFunction function;
+    private double[] arguments;
+    private double[] out;
+
+    // ядро выбирается при первом обращении к таблицам, поэтому свойство
+    // задается до их создания; каждый набор параметров - в своей JVM
+    @Setup(Level.Trial)
+    public void setup() throws InappropriateFunctionPointException {
+        if ("vector".equals(kernel) && !compiled("functions.VectorInterpolationKernel")) {
+            throw new IllegalStateException("Векторное ядро не собрано: benchmarks.jar нужно собрать JDK 21");
+        }
+        System.setProperty("functions.kernel", kernel);
+        double[] values = OperationsBenchmark.values(size);
+        function = "uniform".equals(grid) ? new UniformTabulatedFunction(0, 1, values) : irregular(values);
+        arguments = arguments(pattern);
+        out = new double[ARGUMENTS];
+    }
+
+    @Benchmark
+    public double[] getFunctionValues() {
+        function.getFunctionValues(arguments, out);
+        return out;
+    }
+
+    private static boolean compiled(String name) {
+        try {
+            Class.forName(name, false, VectorBenchmark.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // сетка со случайным сдвигом внутренних точек в пределах трети шага
+    static TabulatedFunction irregular(double[] values) throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction function = new ArrayTabulatedFunction(0, 1, values);
+        SplittableRandom random = new SplittableRandom(7);
+        double step = 1.0 / (values.length - 1);
+        for (int i = 1; i < values.length - 1; i++) {
+            function.setPointX(i, function.getPointX(i) + (random.nextDouble() - 0.5) * step * 0.66);
+        }
+        return function;
+    }
+
+    // случайные аргументы или упорядоченные по всей области определения
+    static double[] arguments(String pattern) {
+        double[] arguments = new double[ARGUMENTS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < ARGUMENTS; i++) {
+            arguments[i] = OperationsBenchmark.RANDOM.equals(pattern) ? random.nextDouble()
+                    : (double) i / (ARGUMENTS - 1);
+        }
+        return arguments;
+    }
+}
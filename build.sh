@@ -0,0 +1,34 @@
+#!/bin/sh
+# Сборка в каталог out.
+#
+# Основная часть - пакет functions и Main - собирается любым JDK начиная с 17
+# без дополнительных параметров:
+#   javac -encoding UTF-8 -d out Main.java functions/*.java
+#   java -cp out Main
+#
+# Необязательные части лежат в отдельных каталогах исходников в тех же пакетах
+# и собираются поверх основной, только если javac из JDK 21 или новее:
+#   jdk21  - MappedTabulatedFunction и OffHeapTabulatedFunction на Foreign
+#            Function & Memory API (в JDK 21 - предварительная возможность) и
+#            замеры на виртуальных потоках и памяти вне кучи; запуск с --enable-preview:
+#              java --enable-preview -cp out benchmarks.GcPauseBenchmark
+#   vector - векторное ядро интерполяции на модуле jdk.incubator.vector;
+#            подключается само, если JVM запущена с --add-modules jdk.incubator.vector,
+#            иначе используется скалярное:
+#              java --add-modules jdk.incubator.vector -cp out Main
+#
+# Замеры на JMH из каталога benchmarks собираются Maven отдельно (benchmarks/pom.xml):
+#   mvn -f benchmarks/pom.xml package
+#   java -jar benchmarks/target/benchmarks.jar OperationsBenchmark -prof gc
+set -e
+cd "$(dirname "$0")"
+rm -rf out
+javac -encoding UTF-8 -d out Main.java functions/*.java
+
+version=$(javac -version 2>&1 | sed 's/^javac \([0-9]*\).*/\1/')
+if [ "$version" -lt 21 ]; then
+    echo "javac $version: каталоги jdk21 и vector пропущены (нужен JDK 21)"
+    exit 0
+fi
+javac -encoding UTF-8 --release 21 --enable-preview -cp out -d out $(find jdk21 -name '*.java')
+javac -encoding UTF-8 --release 21 --add-modules jdk.incubator.vector -cp out -d out vector/functions/*.java
@@ -0,0 +1,344 @@
+package functions;
+
+// Декоратор для аналитических запросов к таблице: интеграл, среднее значение
+// на отрезке и производная за O(log n). Хранит копию точек, наклоны отрезков
+// и дерево Фенвика по площадям трапеций под отрезками; изменение точки через
+// декоратор обновляет два отрезка и O(log n) узлов дерева. addPoint и deletePoint
+// сдвигают номера всех следующих отрезков: узлы дерева правее места изменения
+// помечаются устаревшими и перестраиваются за O(n - i) при следующем интеграле,
+// так что серия вставок стоит одной перестройки.
+// Значения функции тоже вычисляются по готовым наклонам. Изменения функции в
+// обход декоратора он не замечает. Как и ArrayTabulatedFunction, декоратор не
+// потокобезопасен.
+public class AnalyticsTabulatedFunction implements TabulatedFunction, BulkEvaluation {
+    private final TabulatedFunction function;
+
+    private double[] xs;
+    private double[] ys;
+    // slopes[i] - наклон отрезка [xs[i], xs[i + 1]]
+    private double[] slopes;
+    // дерево Фенвика по площадям отрезков, узлы с 1: tree[j] - сумма площадей
+    // отрезков с номерами [j - (j & -j), j)
+    private double[] tree;
+    private int pointsCount;
+    // обновлений дерева после полной перестройки: приращения накапливают
+    // погрешность округления, поэтому после pointsCount обновлений дерево
+    // строится заново (амортизированно O(1) на обновление)
+    private int updates;
+    // первый отрезок, узлы дерева для которого и правее устарели; MAX_VALUE - дерево верно
+    private int stale = Integer.MAX_VALUE;
+
+    public AnalyticsTabulatedFunction(TabulatedFunction function) {
+        this.function = function;
+        pointsCount = function.getPointsCount();
+        xs = new double[pointsCount + 10];
+        ys = new double[pointsCount + 10];
+        slopes = new double[pointsCount + 10];
+        tree = new double[pointsCount + 10];
+        function.copyXs(xs);
+        function.copyYs(ys);
+        for (int i = 0; i < pointsCount - 1; i++) {
+            slopes[i] = slope(i);
+        }
+        // дерево строится при первом интеграле
+        stale = 0;
+    }
+
+    public TabulatedFunction getFunction() {
+        return function;
+    }
+
+    // определенный интеграл от a до b; вне области определения - NaN
+    public double integrate(double a, double b) {
+        if (a > b) {
+            return -integrate(b, a);
+        }
+        if (!(a >= xs[0] && b <= xs[pointsCount - 1])) {
+            return Double.NaN;
+        }
+        int first = segment(a);
+        int last = segment(b);
+        if (first == last) {
+            return area(first, a, b);
+        }
+        if (stale != Integer.MAX_VALUE) {
+            rebuild(stale);
+            stale = Integer.MAX_VALUE;
+        }
+        // хвост первого отрезка, целые отрезки между ними и начало последнего
+        return area(first, a, xs[first + 1]) + (prefix(last) - prefix(first + 1)) + area(last, xs[last], b);
+    }
+
+    // среднее значение функции на [a, b]
+    public double mean(double a, double b) {
+        if (a == b) {
+            return getFunctionValue(a);
+        }
+        return integrate(a, b) / (b - a);
+    }
+
+    // наклон отрезка, содержащего x; в узле - наклон отрезка слева от него
+    // (в левой границе - первого отрезка)
+    public double derivative(double x) {
+        if (!(x >= xs[0] && x <= xs[pointsCount - 1])) {
+            return Double.NaN;
+        }
+        return slopes[segment(x)];
+    }
+
+    private int segment(double x) {
+        return pointsCount > SegmentSearch.BRANCHLESS_LIMIT
+                ? Interpolation.segmentBranching(xs, pointsCount, x) : Interpolation.segment(xs, pointsCount, x);
+    }
+
+    private double slope(int segment) {
+        return (ys[segment + 1] - ys[segment]) / (xs[segment + 1] - xs[segment]);
+    }
+
+    // площадь трапеции под отрезком целиком
+    private double area(int segment) {
+        return (xs[segment + 1] - xs[segment]) * (ys[segment] + ys[segment + 1]) / 2;
+    }
+
+    // площадь под отрезком между u и v из него
+    private double area(int segment, double u, double v) {
+        return (v - u) * (value(segment, u) + value(segment, v)) / 2;
+    }
+
+    // тот же результат, что у Interpolation.interpolate, без деления
+    private double value(int segment, double x) {
+        if (Math.abs(xs[segment] - x) < 1e-10) {
+            return ys[segment];
+        }
+        if (Math.abs(xs[segment + 1] - x) < 1e-10) {
+            return ys[segment + 1];
+        }
+        return slopes[segment] * (x - xs[segment]) + ys[segment];
+    }
+
+    // сумма площадей отрезков с номерами [0, count)
+    private double prefix(int count) {
+        double sum = 0;
+        for (int j = count; j > 0; j -= j & -j) {
+            sum += tree[j];
+        }
+        return sum;
+    }
+
+    private void add(int segment, double delta) {
+        int segments = pointsCount - 1;
+        for (int j = segment + 1; j <= segments; j += j & -j) {
+            tree[j] += delta;
+        }
+    }
+
+    // Перестройка узлов дерева для отрезков с номера from за O(n - from).
+    // Узлы левее не меняются; в узлы правее, кроме их собственных отрезков,
+    // входят только узлы цепочки prefix(from) - их суммы добавляются готовыми.
+    private void rebuild(int from) {
+        int segments = pointsCount - 1;
+        for (int j = from + 1; j <= segments; j++) {
+            tree[j] = area(j - 1);
+        }
+        for (int j = from; j > 0; j -= j & -j) {
+            int parent = j + (j & -j);
+            if (parent <= segments) {
+                tree[parent] += tree[j];
+            }
+        }
+        for (int j = from + 1; j <= segments; j++) {
+            int parent = j + (j & -j);
+            if (parent <= segments) {
+                tree[parent] += tree[j];
+            }
+        }
+        if (from == 0) {
+            updates = 0;
+        }
+    }
+
+    // новая точка index: меняются отрезки index - 1 и index; узлы устаревшей
+    // части дерева все равно будут построены заново
+    private void movePoint(int index, double x, double y) {
+        double leftArea = index > 0 ? area(index - 1) : 0;
+        double rightArea = index < pointsCount - 1 ? area(index) : 0;
+        xs[index] = x;
+        ys[index] = y;
+        if (index > 0) {
+            slopes[index - 1] = slope(index - 1);
+            if (index - 1 < stale) {
+                add(index - 1, area(index - 1) - leftArea);
+            }
+        }
+        if (index < pointsCount - 1) {
+            slopes[index] = slope(index);
+            if (index < stale) {
+                add(index, area(index) - rightArea);
+            }
+        }
+        if (++updates > pointsCount) {
+            stale = 0;
+        }
+    }
+
+    public double getFunctionValue(double x) {
+        // отрицание сравнений отсекает и NaN
+        if (!(x >= xs[0] && x <= xs[pointsCount - 1])) {
+            return Double.NaN;
+        }
+        return value(segment(x), x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // значения для части аргументов xs[from, to); по упорядоченным аргументам
+    // поиск продолжается с предыдущего отрезка
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        Interpolation.checkRange(xs, out, from, to);
+        boolean sorted = Interpolation.sorted(xs, from, to);
+        double left = this.xs[0];
+        double right = this.xs[pointsCount - 1];
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            if (!(x >= left && x <= right)) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            segment = sorted ? Interpolation.advanceSegment(this.xs, pointsCount, segment, x) : segment(x);
+            out[i] = value(segment, x);
+        }
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return function.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        return function.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        return function.getPointY(index);
+    }
+
+    public double getLeftDomainBorder() {
+        return xs[0];
+    }
+
+    public double getRightDomainBorder() {
+        return xs[pointsCount - 1];
+    }
+
+    public void forEachPoint(DoubleBiConsumer action) {
+        function.forEachPoint(action);
+    }
+
+    public PointCursor cursor() {
+        return function.cursor();
+    }
+
+    public void copyXs(double[] target) {
+        function.copyXs(target);
+    }
+
+    public void copyYs(double[] target) {
+        function.copyYs(target);
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        function.setPoint(index, point);
+        movePoint(index, point.getX(), point.getY());
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        function.setPointX(index, x);
+        movePoint(index, x, ys[index]);
+    }
+
+    public void setPointY(int index, double y) {
+        function.setPointY(index, y);
+        movePoint(index, xs[index], y);
+    }
+
+    public void deletePoint(int index) {
+        function.deletePoint(index);
+
+        // отрезки index - 1 и index сливаются, следующие сдвигаются влево
+        System.arraycopy(xs, index + 1, xs, index, pointsCount - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, pointsCount - index - 1);
+        if (index < pointsCount - 2) {
+            System.arraycopy(slopes, index + 1, slopes, index, pointsCount - index - 2);
+        }
+        pointsCount--;
+        if (index > 0 && index < pointsCount) {
+            slopes[index - 1] = slope(index - 1);
+        }
+        stale = Math.min(stale, Math.max(index - 1, 0));
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        function.addPoint(point);
+
+        // отрезок index - 1 делится новой точкой на два, следующие сдвигаются вправо
+        int index = lowerBound(point.getX());
+        ensureCapacity(pointsCount + 1);
+        System.arraycopy(xs, index, xs, index + 1, pointsCount - index);
+        System.arraycopy(ys, index, ys, index + 1, pointsCount - index);
+        if (index < pointsCount - 1) {
+            System.arraycopy(slopes, index, slopes, index + 1, pointsCount - index - 1);
+        }
+        xs[index] = point.getX();
+        ys[index] = point.getY();
+        pointsCount++;
+        if (index > 0) {
+            slopes[index - 1] = slope(index - 1);
+        }
+        if (index < pointsCount - 1) {
+            slopes[index] = slope(index);
+        }
+        stale = Math.min(stale, Math.max(index - 1, 0));
+    }
+
+    // номер первой точки с X не меньше x
+    private int lowerBound(double x) {
+        int left = 0;
+        int right = pointsCount;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (xs[mid] < x) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > xs.length) {
+            int length = Math.max(capacity, xs.length + (xs.length >> 1));
+            xs = grow(xs, length);
+            ys = grow(ys, length);
+            slopes = grow(slopes, length);
+            tree = grow(tree, length);
+        }
+    }
+
+    private double[] grow(double[] array, int length) {
+        double[] larger = new double[length];
+        System.arraycopy(array, 0, larger, 0, pointsCount);
+        return larger;
+    }
+
+    // неизменяемая копия самой функции
+    public TabulatedFunction freeze() {
+        return function.freeze();
+    }
+}
@@ -0,0 +1,40 @@
+package functions;
+
+// Курсор по первым count элементам массивов абсцисс и ординат
+final class ArrayPointCursor implements PointCursor {
+    private final double[] xs;
+    private final double[] ys;
+    private final int count;
+    private int index = -1;
+
+    ArrayPointCursor(double[] xs, double[] ys, int count) {
+        this.xs = xs;
+        this.ys = ys;
+        this.count = count;
+    }
+
+    public boolean next() {
+        if (index + 1 >= count) {
+            index = count;
+            return false;
+        }
+        index++;
+        return true;
+    }
+
+    public double getX() {
+        checkPosition();
+        return xs[index];
+    }
+
+    public double getY() {
+        checkPosition();
+        return ys[index];
+    }
+
+    private void checkPosition() {
+        if (index < 0 || index >= count) {
+            throw new IllegalStateException("Курсор не указывает на точку");
+        }
+    }
+}
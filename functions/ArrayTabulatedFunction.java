@@ -1,8 +1,16 @@
 package functions;
 
-public class ArrayTabulatedFunction implements TabulatedFunction {
-    private FunctionPoint[] points;
+public class ArrayTabulatedFunction implements TabulatedFunction, BulkEvaluation {
+    // точки хранятся в параллельных массивах абсцисс и ординат,
+    // объекты FunctionPoint создаются только в getPoint()
+    private double[] xs;
+    private double[] ys;
     private int pointsCount;
+    // индекс поиска отрезка; сбрасывается при изменении X и строится заново при следующем поиске
+    private SegmentSearch search = SegmentSearch.BINARY;
+    private SegmentIndex index;
+    // метрики InstrumentedTabulatedFunction; null, если учет выключен
+    private TabulatedFunctionMetrics metrics;
 
     public ArrayTabulatedFunction(double leftX, double rightX, int pointsCount) {
         if (leftX >= rightX) {
@@ -13,12 +21,12 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
         }
 
         this.pointsCount = pointsCount;
-        this.points = new FunctionPoint[pointsCount + 10];
+        this.xs = new double[pointsCount + 10];
+        this.ys = new double[pointsCount + 10];
 
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            points[i] = new FunctionPoint(x, 0);
+            xs[i] = leftX + i * step;
         }
     }
 
@@ -31,50 +39,93 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
         }
 
         this.pointsCount = values.length;
-        this.points = new FunctionPoint[pointsCount + 10];
+        this.xs = new double[pointsCount + 10];
+        this.ys = new double[pointsCount + 10];
 
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            points[i] = new FunctionPoint(x, values[i]);
+            xs[i] = leftX + i * step;
         }
+        System.arraycopy(values, 0, ys, 0, pointsCount);
+    }
+
+    // функция над готовыми массивами, упорядоченными по X; массивы не копируются
+    ArrayTabulatedFunction(double[] xs, double[] ys, int pointsCount) {
+        this.xs = xs;
+        this.ys = ys;
+        this.pointsCount = pointsCount;
+    }
+
+    void setMetrics(TabulatedFunctionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // массив ординат для ParallelTabulation; значимы первые pointsCount элементов
+    double[] ys() {
+        return ys;
     }
 
     public double getLeftDomainBorder() {
-        return points[0].getX();
+        return xs[0];
     }
 
     public double getRightDomainBorder() {
-        return points[pointsCount - 1].getX();
+        return xs[pointsCount - 1];
     }
 
-    public double getFunctionValue(double x) {
-        if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
-            return Double.NaN;
+    public SegmentSearch getSegmentSearch() {
+        return search;
+    }
+
+    public void setSegmentSearch(SegmentSearch search) {
+        if (search != this.search) {
+            this.search = search;
+            index = null;
         }
+    }
 
-        // Бинарный поиск интервала
-        int left = 0;
-        int right = pointsCount - 1;
+    private SegmentIndex segmentIndex() {
+        SegmentIndex current = index;
+        if (current == null) {
+            current = search.build(xs, pointsCount);
+            index = current;
+        }
+        return current;
+    }
 
-        while (left <= right) {
-            int mid = (left + right) / 2;
-            if (Math.abs(points[mid].getX() - x) < 1e-10) {
-                return points[mid].getY();
-            } else if (points[mid].getX() < x) {
-                left = mid + 1;
-            } else {
-                right = mid - 1;
-            }
+    public double getFunctionValue(double x) {
+        // отрицание сравнений отсекает и NaN
+        if (!(x >= xs[0] && x <= xs[pointsCount - 1])) {
+            return Double.NaN;
+        }
+        SegmentIndex current = segmentIndex();
+        int segment = current.segment(x);
+        if (metrics != null) {
+            metrics.searched(current.depth(x, segment));
         }
+        return Interpolation.interpolate(xs, ys, segment, x);
+    }
 
-        // Линейная интерполяция
-        int index = (points[left].getX() < x) ? left + 1 : left;
-        FunctionPoint p1 = points[index - 1];
-        FunctionPoint p2 = points[index];
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
 
-        double k = (p2.getY() - p1.getY()) / (p2.getX() - p1.getX());
-        return k * (x - p1.getX()) + p1.getY();
+    // значения для части аргументов xs[from, to); упорядоченные аргументы -
+    // одним проходом по таблице, остальные - через индекс
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        Interpolation.checkRange(xs, out, from, to);
+        if (Interpolation.sorted(xs, from, to)) {
+            Interpolation.values(this.xs, ys, pointsCount, xs, out, from, to, true);
+            return;
+        }
+        SegmentIndex current = segmentIndex();
+        double left = this.xs[0];
+        double right = this.xs[pointsCount - 1];
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            out[i] = (x >= left && x <= right)
+                    ? Interpolation.interpolate(this.xs, ys, current.segment(x), x) : Double.NaN;
+        }
     }
 
     public int getPointsCount() {
@@ -85,7 +136,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException(index);
         }
-        return new FunctionPoint(points[index]);
+        return new FunctionPoint(xs[index], ys[index]);
     }
 
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
@@ -93,19 +144,21 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
             throw new FunctionPointIndexOutOfBoundsException(index);
         }
 
-        if ((index > 0 && point.getX() <= points[index - 1].getX()) ||
-                (index < pointsCount - 1 && point.getX() >= points[index + 1].getX())) {
+        if ((index > 0 && point.getX() <= xs[index - 1]) ||
+                (index < pointsCount - 1 && point.getX() >= xs[index + 1])) {
             throw new InappropriateFunctionPointException("Нарушена упорядоченность точек");
         }
 
-        points[index] = new FunctionPoint(point);
+        xs[index] = point.getX();
+        ys[index] = point.getY();
+        this.index = null;
     }
 
     public double getPointX(int index) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException(index);
         }
-        return points[index].getX();
+        return xs[index];
     }
 
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
@@ -113,26 +166,27 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
             throw new FunctionPointIndexOutOfBoundsException(index);
         }
 
-        if ((index > 0 && x <= points[index - 1].getX()) ||
-                (index < pointsCount - 1 && x >= points[index + 1].getX())) {
+        if ((index > 0 && x <= xs[index - 1]) ||
+                (index < pointsCount - 1 && x >= xs[index + 1])) {
             throw new InappropriateFunctionPointException("Нарушена упорядоченность точек");
         }
 
-        points[index].setX(x);
+        xs[index] = x;
+        this.index = null;
     }
 
     public double getPointY(int index) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException(index);
         }
-        return points[index].getY();
+        return ys[index];
     }
 
     public void setPointY(int index, double y) {
         if (index < 0 || index >= pointsCount) {
             throw new FunctionPointIndexOutOfBoundsException(index);
         }
-        points[index].setY(y);
+        ys[index] = y;
     }
 
     public void deletePoint(int index) {
@@ -143,34 +197,173 @@ public class ArrayTabulatedFunction implements TabulatedFunction {
             throw new IllegalStateException("Нельзя удалить точку: меньше 3 точек");
         }
 
-        System.arraycopy(points, index + 1, points, index, pointsCount - index - 1);
+        System.arraycopy(xs, index + 1, xs, index, pointsCount - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, pointsCount - index - 1);
+        if (metrics != null) {
+            metrics.copied(pointsCount - index - 1);
+        }
         pointsCount--;
+        this.index = null;
     }
 
-    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
-        // Проверка на дублирование
+    // неизменяемая копия без резерва под добавление точек
+    public TabulatedFunction freeze() {
+        double[] frozenXs = new double[pointsCount];
+        double[] frozenYs = new double[pointsCount];
+        System.arraycopy(xs, 0, frozenXs, 0, pointsCount);
+        System.arraycopy(ys, 0, frozenYs, 0, pointsCount);
+        return new FrozenTabulatedFunction(frozenXs, frozenYs);
+    }
+
+    // обход точек без создания FunctionPoint
+    public void forEachPoint(DoubleBiConsumer action) {
         for (int i = 0; i < pointsCount; i++) {
-            if (Math.abs(points[i].getX() - point.getX()) < 1e-10) {
-                throw new InappropriateFunctionPointException("Точка с таким X уже существует");
-            }
+            action.accept(xs[i], ys[i]);
         }
+    }
+
+    public PointCursor cursor() {
+        return new ArrayPointCursor(xs, ys, pointsCount);
+    }
+
+    public void copyXs(double[] target) {
+        checkTarget(target);
+        System.arraycopy(xs, 0, target, 0, pointsCount);
+    }
+
+    public void copyYs(double[] target) {
+        checkTarget(target);
+        System.arraycopy(ys, 0, target, 0, pointsCount);
+    }
 
-        // Увеличение массива при необходимости
-        if (pointsCount >= points.length) {
-            FunctionPoint[] newArray = new FunctionPoint[pointsCount + 10];
-            System.arraycopy(points, 0, newArray, 0, pointsCount);
-            points = newArray;
+    private void checkTarget(double[] target) {
+        if (target.length < pointsCount) {
+            throw new IllegalArgumentException("Массив короче числа точек");
         }
+    }
 
-        // Поиск позиции для вставки
-        int insertIndex = 0;
-        while (insertIndex < pointsCount && points[insertIndex].getX() < point.getX()) {
-            insertIndex++;
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        // NaN не упорядочен относительно других X; как и addPoints, такая точка отклоняется
+        if (Double.isNaN(point.getX())) {
+            throw new InappropriateFunctionPointException("X точки не является числом");
+        }
+        // один бинарный поиск дает и позицию вставки, и ближайших соседей для проверки на дублирование
+        int insertIndex = lowerBound(point.getX());
+        if ((insertIndex < pointsCount && Math.abs(xs[insertIndex] - point.getX()) < 1e-10) ||
+                (insertIndex > 0 && Math.abs(xs[insertIndex - 1] - point.getX()) < 1e-10)) {
+            throw new InappropriateFunctionPointException("Точка с таким X уже существует");
         }
 
+        ensureCapacity(pointsCount + 1);
+
         // Сдвиг элементов
-        System.arraycopy(points, insertIndex, points, insertIndex + 1, pointsCount - insertIndex);
-        points[insertIndex] = new FunctionPoint(point);
+        System.arraycopy(xs, insertIndex, xs, insertIndex + 1, pointsCount - insertIndex);
+        System.arraycopy(ys, insertIndex, ys, insertIndex + 1, pointsCount - insertIndex);
+        if (metrics != null) {
+            metrics.copied(pointsCount - insertIndex);
+        }
+        xs[insertIndex] = point.getX();
+        ys[insertIndex] = point.getY();
         pointsCount++;
+        index = null;
+    }
+
+    // добавление набора точек в произвольном порядке
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        double[] newXs = new double[points.length];
+        double[] newYs = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            newXs[i] = points[i].getX();
+            newYs[i] = points[i].getY();
+        }
+        mergePoints(newXs, newYs);
+    }
+
+    public void addPoints(double[] xs, double[] ys) throws InappropriateFunctionPointException {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Массивы абсцисс и ординат разной длины");
+        }
+        mergePoints(xs, ys);
+    }
+
+    // Набор сортируется и сливается с таблицей за один проход с конца, так что
+    // каждая точка таблицы сдвигается не больше одного раза. Сначала весь набор
+    // проверяется, поэтому при ошибке таблица не меняется.
+    private void mergePoints(double[] newXs, double[] newYs) throws InappropriateFunctionPointException {
+        int count = newXs.length;
+        int[] order = Sorting.order(newXs, count);
+
+        int existing = 0;
+        double previous = Double.NaN;
+        for (int k = 0; k < count; k++) {
+            double x = newXs[order[k]];
+            if (Double.isNaN(x)) {
+                throw new InappropriateFunctionPointException("X точки не является числом");
+            }
+            if (k > 0 && x - previous < 1e-10) {
+                throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+            }
+            while (existing < pointsCount && xs[existing] < x) {
+                existing++;
+            }
+            if ((existing < pointsCount && xs[existing] - x < 1e-10) ||
+                    (existing > 0 && x - xs[existing - 1] < 1e-10)) {
+                throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+            }
+            previous = x;
+        }
+
+        ensureCapacity(pointsCount + count);
+
+        int i = pointsCount - 1;
+        int k = count - 1;
+        for (int target = pointsCount + count - 1; k >= 0; target--) {
+            if (i >= 0 && xs[i] > newXs[order[k]]) {
+                xs[target] = xs[i];
+                ys[target] = ys[i];
+                i--;
+            } else {
+                xs[target] = newXs[order[k]];
+                ys[target] = newYs[order[k]];
+                k--;
+            }
+        }
+        if (metrics != null) {
+            // точки с i + 1 по pointsCount - 1 сдвинуты
+            metrics.copied(pointsCount - 1 - i);
+        }
+        pointsCount += count;
+        index = null;
+    }
+
+    // номер первой точки с X не меньше x
+    private int lowerBound(double x) {
+        int left = 0;
+        int right = pointsCount;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (xs[mid] < x) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    // геометрический рост: построение таблицы по одной точке - амортизированно O(1) копирований на точку
+    private void ensureCapacity(int capacity) {
+        if (capacity > xs.length) {
+            int newLength = Math.max(capacity, xs.length + (xs.length >> 1));
+            double[] newXs = new double[newLength];
+            double[] newYs = new double[newLength];
+            System.arraycopy(xs, 0, newXs, 0, pointsCount);
+            System.arraycopy(ys, 0, newYs, 0, pointsCount);
+            if (metrics != null) {
+                metrics.resized(xs.length, newLength, pointsCount);
+            }
+            xs = newXs;
+            ys = newYs;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package functions;
+
+// Бинарный поиск прямо по массиву X, без дополнительной памяти
+final class BinarySegmentIndex implements SegmentIndex {
+    private final double[] xs;
+    private final int count;
+    // поиск с ветвлением - для таблиц больше кэша
+    private final boolean branching;
+
+    BinarySegmentIndex(double[] xs, int count, boolean branching) {
+        this.xs = xs;
+        this.count = count;
+        this.branching = branching;
+    }
+
+    public int segment(double x) {
+        return branching ? Interpolation.segmentBranching(xs, count, x) : Interpolation.segment(xs, count, x);
+    }
+
+    // число делений пополам count - 1 отрезков
+    public int depth(double x, int segment) {
+        return 32 - Integer.numberOfLeadingZeros(count - 2);
+    }
+}
@@ -0,0 +1,443 @@
+package functions;
+
+// Табулированная функция для частых вставок и удалений в середине больших
+// таблиц: развернутый связный список - точки лежат блоками до BLOCK_SIZE
+// штук в массивах double, блоки упорядочены по X. Номер блока по номеру
+// точки ищется деревом Фенвика над размерами блоков, блок по X - бинарным
+// поиском по массиву первых X блоков. Доступ по номеру и поиск по X - O(log n),
+// вставка и удаление сдвигают не больше BLOCK_SIZE точек одного блока.
+// Деление переполненного блока и слияние почти пустых перестраивают каталог
+// блоков за O(n / BLOCK_SIZE), но случаются не чаще раза на BLOCK_SIZE / 4 изменений.
+public class BlockTabulatedFunction implements TabulatedFunction, BulkEvaluation {
+    static final int BLOCK_SIZE = 512;
+    // заполнение блоков при построении: остается место для вставок без деления
+    private static final int INITIAL_FILL = BLOCK_SIZE * 3 / 4;
+
+    private static final class Block {
+        final double[] xs = new double[BLOCK_SIZE];
+        final double[] ys = new double[BLOCK_SIZE];
+        int count;
+    }
+
+    private Block[] blocks;
+    private int blockCount;
+    // X первой точки каждого блока
+    private double[] firstXs;
+    // дерево Фенвика над размерами блоков, элементы с 1
+    private int[] tree;
+    private int pointsCount;
+
+    public BlockTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(leftX, rightX, new double[checkCount(pointsCount)]);
+    }
+
+    public BlockTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        checkCount(values.length);
+
+        int count = values.length;
+        blockCount = (count + INITIAL_FILL - 1) / INITIAL_FILL;
+        blocks = new Block[blockCount + 4];
+        double step = (rightX - leftX) / (count - 1);
+        for (int b = 0; b < blockCount; b++) {
+            Block block = new Block();
+            int from = b * INITIAL_FILL;
+            block.count = Math.min(INITIAL_FILL, count - from);
+            for (int i = 0; i < block.count; i++) {
+                block.xs[i] = leftX + (from + i) * step;
+            }
+            System.arraycopy(values, from, block.ys, 0, block.count);
+            blocks[b] = block;
+        }
+        pointsCount = count;
+        rebuildDirectory();
+    }
+
+    private static int checkCount(int pointsCount) {
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+        return pointsCount;
+    }
+
+    // массив первых X и дерево Фенвика заново после изменения состава блоков
+    private void rebuildDirectory() {
+        if (firstXs == null || firstXs.length < blocks.length) {
+            firstXs = new double[blocks.length];
+            tree = new int[blocks.length + 1];
+        }
+        for (int b = 0; b < blockCount; b++) {
+            firstXs[b] = blocks[b].xs[0];
+            tree[b + 1] = blocks[b].count;
+        }
+        for (int i = blockCount + 1; i < tree.length; i++) {
+            tree[i] = 0;
+        }
+        // построение за линейное время: каждый узел добавляет свою сумму родителю
+        for (int i = 1; i <= blockCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= blockCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void addToCount(int block, int delta) {
+        blocks[block].count += delta;
+        for (int i = block + 1; i <= blockCount; i += i & -i) {
+            tree[i] += delta;
+        }
+        pointsCount += delta;
+    }
+
+    // блок и позиция в нем для номера точки: старшие 32 бита - блок, младшие - позиция
+    private long locate(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+        // спуск по дереву Фенвика: наибольший префикс блоков с суммой не больше index
+        int block = 0;
+        int remaining = index;
+        for (int bit = Integer.highestOneBit(blockCount); bit != 0; bit >>= 1) {
+            int next = block + bit;
+            if (next <= blockCount && tree[next] <= remaining) {
+                block = next;
+                remaining -= tree[next];
+            }
+        }
+        return ((long) block << 32) | remaining;
+    }
+
+    // последний блок, первая точка которого левее x, или 0
+    private int blockBefore(double x) {
+        int left = 0;
+        int right = blockCount - 1;
+        while (left < right) {
+            int mid = (left + right + 1) >>> 1;
+            if (firstXs[mid] < x) {
+                left = mid;
+            } else {
+                right = mid - 1;
+            }
+        }
+        return left;
+    }
+
+    // число точек блока левее x
+    private static int lowerBound(Block block, double x) {
+        int left = 0;
+        int right = block.count;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (block.xs[mid] < x) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public double getLeftDomainBorder() {
+        return blocks[0].xs[0];
+    }
+
+    public double getRightDomainBorder() {
+        Block last = blocks[blockCount - 1];
+        return last.xs[last.count - 1];
+    }
+
+    public double getFunctionValue(double x) {
+        // отрицание сравнений отсекает и NaN
+        if (!(x >= getLeftDomainBorder() && x <= getRightDomainBorder())) {
+            return Double.NaN;
+        }
+        int b = blockBefore(x);
+        return interpolate(b, Math.max(lowerBound(blocks[b], x) - 1, 0), x);
+    }
+
+    // значение на отрезке, начинающемся точкой i блока b
+    private double interpolate(int b, int i, double x) {
+        Block block = blocks[b];
+        // правый конец отрезка может оказаться первой точкой следующего блока
+        if (i + 1 < block.count) {
+            return Interpolation.interpolate(block.xs[i], block.xs[i + 1], block.ys[i], block.ys[i + 1], x);
+        }
+        Block next = blocks[b + 1];
+        return Interpolation.interpolate(block.xs[i], next.xs[0], block.ys[i], next.ys[0], x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // Значения для части аргументов xs[from, to). По упорядоченным аргументам
+    // блок ищется один раз, дальше каталог первых X проходится вперед, а отрезок
+    // в блоке ищется от предыдущего; иначе каждый аргумент ищется заново.
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        Interpolation.checkRange(xs, out, from, to);
+
+        boolean sorted = Interpolation.sorted(xs, from, to);
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int b = -1;
+        int i = 0;
+        for (int k = from; k < to; k++) {
+            double x = xs[k];
+            if (!(x >= left && x <= right)) {
+                out[k] = Double.NaN;
+                continue;
+            }
+            if (!sorted || b < 0) {
+                b = blockBefore(x);
+                i = Math.max(lowerBound(blocks[b], x) - 1, 0);
+            } else {
+                if (b + 1 < blockCount && firstXs[b + 1] < x) {
+                    do {
+                        b++;
+                    } while (b + 1 < blockCount && firstXs[b + 1] < x);
+                    i = 0;
+                }
+                // отрезок может начинаться последней точкой блока, поэтому поиск
+                // идет как по count + 1 точкам: номера отрезков от 0 до count - 1
+                i = Interpolation.advanceSegment(blocks[b].xs, blocks[b].count + 1, i, x);
+            }
+            out[k] = interpolate(b, i, x);
+        }
+    }
+
+    public FunctionPoint getPoint(int index) {
+        long position = locate(index);
+        Block block = blocks[(int) (position >>> 32)];
+        int i = (int) position;
+        return new FunctionPoint(block.xs[i], block.ys[i]);
+    }
+
+    public double getPointX(int index) {
+        long position = locate(index);
+        return blocks[(int) (position >>> 32)].xs[(int) position];
+    }
+
+    public double getPointY(int index) {
+        long position = locate(index);
+        return blocks[(int) (position >>> 32)].ys[(int) position];
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        long position = locate(index);
+        checkOrder(position, point.getX());
+        setX(position, point.getX());
+        blocks[(int) (position >>> 32)].ys[(int) position] = point.getY();
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        long position = locate(index);
+        checkOrder(position, x);
+        setX(position, x);
+    }
+
+    public void setPointY(int index, double y) {
+        long position = locate(index);
+        blocks[(int) (position >>> 32)].ys[(int) position] = y;
+    }
+
+    // соседи точки могут лежать в соседних блоках
+    private void checkOrder(long position, double x) throws InappropriateFunctionPointException {
+        int b = (int) (position >>> 32);
+        int i = (int) position;
+        Block block = blocks[b];
+        double previous = i > 0 ? block.xs[i - 1]
+                : b > 0 ? blocks[b - 1].xs[blocks[b - 1].count - 1] : Double.NEGATIVE_INFINITY;
+        double next = i + 1 < block.count ? block.xs[i + 1]
+                : b + 1 < blockCount ? blocks[b + 1].xs[0] : Double.POSITIVE_INFINITY;
+        if ((previous != Double.NEGATIVE_INFINITY && x <= previous) ||
+                (next != Double.POSITIVE_INFINITY && x >= next)) {
+            throw new InappropriateFunctionPointException("Нарушена упорядоченность точек");
+        }
+    }
+
+    private void setX(long position, double x) {
+        int b = (int) (position >>> 32);
+        int i = (int) position;
+        blocks[b].xs[i] = x;
+        if (i == 0) {
+            firstXs[b] = x;
+        }
+    }
+
+    public void deletePoint(int index) {
+        long position = locate(index);
+        if (pointsCount < 3) {
+            throw new IllegalStateException("Нельзя удалить точку: меньше 3 точек");
+        }
+
+        int b = (int) (position >>> 32);
+        int i = (int) position;
+        Block block = blocks[b];
+        System.arraycopy(block.xs, i + 1, block.xs, i, block.count - i - 1);
+        System.arraycopy(block.ys, i + 1, block.ys, i, block.count - i - 1);
+        addToCount(b, -1);
+        if (block.count == 0) {
+            removeBlock(b);
+        } else {
+            firstXs[b] = block.xs[0];
+            // почти пустой блок сливается со следующим, если вместе они заполнены не больше чем наполовину
+            if (block.count < BLOCK_SIZE / 4 && b + 1 < blockCount
+                    && block.count + blocks[b + 1].count <= BLOCK_SIZE / 2) {
+                Block next = blocks[b + 1];
+                System.arraycopy(next.xs, 0, block.xs, block.count, next.count);
+                System.arraycopy(next.ys, 0, block.ys, block.count, next.count);
+                block.count += next.count;
+                next.count = 0;
+                removeBlock(b + 1);
+            }
+        }
+    }
+
+    private void removeBlock(int b) {
+        System.arraycopy(blocks, b + 1, blocks, b, blockCount - b - 1);
+        blockCount--;
+        blocks[blockCount] = null;
+        rebuildDirectory();
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        if (Double.isNaN(x)) {
+            throw new InappropriateFunctionPointException("X точки не является числом");
+        }
+        int b = blockBefore(x);
+        Block block = blocks[b];
+        int i = lowerBound(block, x);
+
+        // ближайшие к x точки - по обе стороны позиции вставки, возможно в соседних блоках
+        double previous = i > 0 ? block.xs[i - 1] : Double.NaN;
+        double next = i < block.count ? block.xs[i] : b + 1 < blockCount ? blocks[b + 1].xs[0] : Double.NaN;
+        if (Math.abs(previous - x) < 1e-10 || Math.abs(next - x) < 1e-10) {
+            throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+        }
+
+        if (block.count == BLOCK_SIZE) {
+            splitBlock(b);
+            if (i > block.count) {
+                i -= block.count;
+                b++;
+                block = blocks[b];
+            }
+        }
+        System.arraycopy(block.xs, i, block.xs, i + 1, block.count - i);
+        System.arraycopy(block.ys, i, block.ys, i + 1, block.count - i);
+        block.xs[i] = x;
+        block.ys[i] = point.getY();
+        addToCount(b, 1);
+        if (i == 0) {
+            firstXs[b] = x;
+        }
+    }
+
+    // вторая половина переполненного блока переносится в новый блок после него
+    private void splitBlock(int b) {
+        Block block = blocks[b];
+        Block second = new Block();
+        int half = block.count / 2;
+        second.count = block.count - half;
+        System.arraycopy(block.xs, half, second.xs, 0, second.count);
+        System.arraycopy(block.ys, half, second.ys, 0, second.count);
+        block.count = half;
+
+        if (blockCount == blocks.length) {
+            Block[] grown = new Block[blocks.length + (blocks.length >> 1) + 1];
+            System.arraycopy(blocks, 0, grown, 0, blockCount);
+            blocks = grown;
+        }
+        System.arraycopy(blocks, b + 1, blocks, b + 2, blockCount - b - 1);
+        blocks[b + 1] = second;
+        blockCount++;
+        rebuildDirectory();
+    }
+
+    public TabulatedFunction freeze() {
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        copyXs(xs);
+        copyYs(ys);
+        return new FrozenTabulatedFunction(xs, ys);
+    }
+
+    public void forEachPoint(DoubleBiConsumer action) {
+        for (int b = 0; b < blockCount; b++) {
+            Block block = blocks[b];
+            for (int i = 0; i < block.count; i++) {
+                action.accept(block.xs[i], block.ys[i]);
+            }
+        }
+    }
+
+    public PointCursor cursor() {
+        return new BlockCursor();
+    }
+
+    public void copyXs(double[] target) {
+        checkTarget(target);
+        int offset = 0;
+        for (int b = 0; b < blockCount; b++) {
+            System.arraycopy(blocks[b].xs, 0, target, offset, blocks[b].count);
+            offset += blocks[b].count;
+        }
+    }
+
+    public void copyYs(double[] target) {
+        checkTarget(target);
+        int offset = 0;
+        for (int b = 0; b < blockCount; b++) {
+            System.arraycopy(blocks[b].ys, 0, target, offset, blocks[b].count);
+            offset += blocks[b].count;
+        }
+    }
+
+    private void checkTarget(double[] target) {
+        if (target.length < pointsCount) {
+            throw new IllegalArgumentException("Массив короче числа точек");
+        }
+    }
+
+    private final class BlockCursor implements PointCursor {
+        private int block;
+        private int index = -1;
+
+        public boolean next() {
+            if (block < blockCount && index + 1 < blocks[block].count) {
+                index++;
+                return true;
+            }
+            if (block + 1 < blockCount) {
+                block++;
+                index = 0;
+                return true;
+            }
+            block = blockCount;
+            return false;
+        }
+
+        public double getX() {
+            return current().xs[index];
+        }
+
+        public double getY() {
+            return current().ys[index];
+        }
+
+        private Block current() {
+            if (index < 0 || block >= blockCount) {
+                throw new IllegalStateException("Курсор не указывает на точку");
+            }
+            return blocks[block];
+        }
+    }
+}
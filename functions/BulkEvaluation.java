@@ -0,0 +1,9 @@
+package functions;
+
+// Вычисление значений для части массива аргументов. Реализуют функции, которые
+// можно читать из нескольких потоков одновременно, пока их никто не меняет:
+// ParallelTabulation раздает потокам непересекающиеся части одного массива
+interface BulkEvaluation {
+    // out[i] - значение в xs[i] для i из [from, to)
+    void getFunctionValues(double[] xs, double[] out, int from, int to);
+}
@@ -0,0 +1,265 @@
+package functions;
+
+// Декоратор, запоминающий значения getFunctionValue для повторяющихся
+// аргументов (например, фиксированной сетки). Кэш - хеш-таблица с открытой
+// адресацией по битам double без упаковки в объекты; записи лежат в
+// параллельных массивах, таблица хранит номера записей. При заполнении
+// запись для замены выбирается по алгоритму CLOCK: стрелка обходит записи
+// и снимает бит обращения, заменяется первая запись без него.
+// Любое изменение точек через декоратор увеличивает номер поколения, и все
+// записи прежних поколений считаются отсутствующими, - сброс за O(1).
+// Изменения функции в обход декоратора кэш не замечает. Как и
+// ArrayTabulatedFunction, декоратор не потокобезопасен - даже чтение меняет
+// кэш, поэтому BulkEvaluation он не реализует и ParallelTabulation вычисляет
+// по freeze().
+public class CachingTabulatedFunction implements TabulatedFunction {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final TabulatedFunction function;
+    private final int capacity;
+
+    // номер записи + 1, 0 - пустая ячейка; заполнено не больше половины ячеек
+    private final int[] table;
+    private final int mask;
+    private final int shift;
+
+    private final long[] keys;
+    private final double[] values;
+    private final int[] generations;
+    private final boolean[] referenced;
+    private int size;
+    private int hand;
+    private int generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingTabulatedFunction(TabulatedFunction function) {
+        this(function, DEFAULT_CAPACITY);
+    }
+
+    public CachingTabulatedFunction(TabulatedFunction function, int capacity) {
+        if (capacity < 1 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Емкость кэша должна быть от 1 до 2^28");
+        }
+        this.function = function;
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(capacity) << 2;
+        table = new int[tableSize];
+        mask = tableSize - 1;
+        shift = Long.numberOfLeadingZeros(tableSize - 1);
+        keys = new long[capacity];
+        values = new double[capacity];
+        generations = new int[capacity];
+        referenced = new boolean[capacity];
+    }
+
+    public TabulatedFunction getFunction() {
+        return function;
+    }
+
+    // мультипликативное хеширование: старшие биты произведения
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) & mask;
+    }
+
+    public double getFunctionValue(double x) {
+        // NaN не равен сам себе и в кэш не попадает
+        if (x != x) {
+            return function.getFunctionValue(x);
+        }
+        long key = Double.doubleToRawLongBits(x);
+        int slot = home(key);
+        for (int entry; (entry = table[slot]) != 0; slot = (slot + 1) & mask) {
+            entry--;
+            if (keys[entry] == key) {
+                if (generations[entry] == generation) {
+                    hits++;
+                    referenced[entry] = true;
+                    return values[entry];
+                }
+                // запись прежнего поколения обновляется на месте
+                misses++;
+                double y = function.getFunctionValue(x);
+                values[entry] = y;
+                generations[entry] = generation;
+                referenced[entry] = true;
+                return y;
+            }
+        }
+        misses++;
+        double y = function.getFunctionValue(x);
+        insert(key, y);
+        return y;
+    }
+
+    private void insert(long key, double y) {
+        int entry = size < capacity ? size++ : evict();
+        keys[entry] = key;
+        values[entry] = y;
+        generations[entry] = generation;
+        referenced[entry] = false;
+        // вытеснение могло сдвинуть ячейки, поэтому свободная ищется заново
+        int slot = home(key);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    // CLOCK: записи прежних поколений и записи без обращений с прошлого
+    // прохода стрелки освобождаются первыми
+    private int evict() {
+        while (true) {
+            int entry = hand;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+            if (generations[entry] != generation) {
+                remove(entry);
+                return entry;
+            }
+            if (!referenced[entry]) {
+                evictions++;
+                remove(entry);
+                return entry;
+            }
+            referenced[entry] = false;
+        }
+    }
+
+    // удаление со сдвигом назад: следующие ячейки цепочки, которые могут
+    // занять освободившуюся, переносятся в нее, так что поиск не прерывается
+    private void remove(int entry) {
+        int hole = home(keys[entry]);
+        while (table[hole] != entry + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int slot = (hole + 1) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int home = home(keys[table[slot] - 1]);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        Interpolation.checkRange(xs, out, 0, xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = getFunctionValue(xs[i]);
+        }
+    }
+
+    // все сохраненные значения становятся недействительными
+    public void invalidate() {
+        if (++generation == 0) {
+            // после переполнения номера поколения старые записи могли бы совпасть с новыми
+            for (int i = 0; i < table.length; i++) {
+                table[i] = 0;
+            }
+            size = 0;
+            hand = 0;
+        }
+    }
+
+    public int getCacheCapacity() {
+        return capacity;
+    }
+
+    public long getCacheHits() {
+        return hits;
+    }
+
+    public long getCacheMisses() {
+        return misses;
+    }
+
+    // вытеснения действующих записей при заполненном кэше
+    public long getCacheEvictions() {
+        return evictions;
+    }
+
+    public double getCacheHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void resetCacheStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public int getPointsCount() {
+        return function.getPointsCount();
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return function.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        return function.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        return function.getPointY(index);
+    }
+
+    public void forEachPoint(DoubleBiConsumer action) {
+        function.forEachPoint(action);
+    }
+
+    public PointCursor cursor() {
+        return function.cursor();
+    }
+
+    public void copyXs(double[] target) {
+        function.copyXs(target);
+    }
+
+    public void copyYs(double[] target) {
+        function.copyYs(target);
+    }
+
+    public double getLeftDomainBorder() {
+        return function.getLeftDomainBorder();
+    }
+
+    public double getRightDomainBorder() {
+        return function.getRightDomainBorder();
+    }
+
+    // кэш сбрасывается до вызова: и при исключении после частичного изменения
+    // старые значения не останутся
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        invalidate();
+        function.setPoint(index, point);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        invalidate();
+        function.setPointX(index, x);
+    }
+
+    public void setPointY(int index, double y) {
+        invalidate();
+        function.setPointY(index, y);
+    }
+
+    public void deletePoint(int index) {
+        invalidate();
+        function.deletePoint(index);
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        invalidate();
+        function.addPoint(point);
+    }
+
+    // неизменяемая копия самой функции; кэш ей не нужен
+    public TabulatedFunction freeze() {
+        return function.freeze();
+    }
+}
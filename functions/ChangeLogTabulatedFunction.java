@@ -0,0 +1,494 @@
+package functions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Декоратор, записывающий изменения функции в журнал для передачи репликам.
+// Каждое успешное изменение увеличивает версию; drain() упаковывает накопленные
+// изменения в пакет и очищает журнал, replay() на реплике применяет пакет, если
+// он продолжает ее версию. Изменение одной точки стоит десятки байт, а не всю
+// таблицу. Реплика - такой же декоратор над копией функции с той же версией.
+//
+// Формат пакета (little-endian):
+//   0  int    сигнатура "TABD"
+//   4  long   версия до пакета
+//   12 long   версия после пакета
+//   20 int    число записей
+//   24 int    длина записей в байтах
+//   28        записи: байт кода, затем
+//               SET_X и/или SET_Y: номер точки (varint), X и/или Y
+//               ADD:               X, Y
+//               DELETE:            номер точки (varint)
+//
+// Изменения точки, не сдвигающие номера (setPointY, setPointX, setPoint),
+// сливаются в одну запись, пока между ними нет addPoint и deletePoint. Y
+// сливается в любую запись о точке; X - только в последнюю запись журнала,
+// иначе на реплике он мог бы нарушить порядок точек раньше, чем сдвинутся соседи.
+// Изменения в обход декоратора в журнал не попадают. Как и ArrayTabulatedFunction,
+// декоратор не потокобезопасен; BulkEvaluation он не реализует - можно ли читать
+// функцию из нескольких потоков, зависит от нее самой, поэтому ParallelTabulation
+// вычисляет по freeze().
+public class ChangeLogTabulatedFunction implements TabulatedFunction {
+    static final int MAGIC = 'T' | 'A' << 8 | 'B' << 16 | 'D' << 24;
+    static final int HEADER_SIZE = 28;
+
+    static final byte SET_X = 1;
+    static final byte SET_Y = 2;
+    static final byte ADD = 4;
+    static final byte DELETE = 8;
+
+    private final TabulatedFunction function;
+    private long version;
+    // версия на момент последнего drain() или replay()
+    private long baseVersion;
+
+    // журнал: записи в параллельных массивах
+    private byte[] codes = new byte[16];
+    private int[] indexes = new int[16];
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private int count;
+
+    // номер точки -> последняя запись о ней после последнего addPoint/deletePoint;
+    // открытая адресация, ячейки прежних эпох считаются пустыми - сброс за O(1)
+    private int[] slotPoints = new int[32];
+    private int[] slotEntries = new int[32];
+    private int[] slotEpochs = new int[32];
+    private int slotBits = 5;
+    private int slotsUsed;
+    private int epoch = 1;
+    private int epochStart;
+
+    public ChangeLogTabulatedFunction(TabulatedFunction function) {
+        this(function, 0);
+    }
+
+    // version - версия, с которой продолжается журнал (для реплики - версия копии)
+    public ChangeLogTabulatedFunction(TabulatedFunction function, long version) {
+        this.function = function;
+        this.version = version;
+        this.baseVersion = version;
+    }
+
+    public TabulatedFunction getFunction() {
+        return function;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // число записей в журнале после слияния
+    public int getPendingChanges() {
+        return count;
+    }
+
+    // пакет с изменениями после предыдущего drain(); журнал очищается
+    public byte[] drain() {
+        int size = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            size += entrySize(i);
+        }
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putLong(baseVersion).putLong(version).putInt(count).putInt(size - HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            byte code = codes[i];
+            out.put(code);
+            if (code != ADD) {
+                putVarint(out, indexes[i]);
+            }
+            if ((code & (SET_X | ADD)) != 0) {
+                out.putDouble(xs[i]);
+            }
+            if ((code & (SET_Y | ADD)) != 0) {
+                out.putDouble(ys[i]);
+            }
+        }
+
+        baseVersion = version;
+        count = 0;
+        startEpoch();
+        return out.array();
+    }
+
+    public void drainTo(OutputStream out) throws IOException {
+        out.write(drain());
+    }
+
+    private int entrySize(int entry) {
+        byte code = codes[entry];
+        int size = 1;
+        if (code != ADD) {
+            size += varintSize(indexes[entry]);
+        }
+        if ((code & (SET_X | ADD)) != 0) {
+            size += 8;
+        }
+        if ((code & (SET_Y | ADD)) != 0) {
+            size += 8;
+        }
+        return size;
+    }
+
+    public void replay(byte[] delta) throws IOException, InappropriateFunctionPointException {
+        if (!replay(new ByteArrayInputStream(delta))) {
+            throw new IOException("Пакет изменений оборван");
+        }
+    }
+
+    // Применение очередного пакета из потока к функции; false - поток закончился.
+    // Пакет сначала целиком читается и проверяется, поэтому испорченный пакет
+    // функцию не меняет. Если запись не применяется к функции (номер точки вне
+    // таблицы, нарушен порядок точек), уже примененные записи пакета
+    // откатываются и версия не меняется. Примененные изменения в журнал реплики
+    // не попадают.
+    public boolean replay(InputStream in) throws IOException, InappropriateFunctionPointException {
+        byte[] header = in.readNBytes(HEADER_SIZE);
+        if (header.length == 0) {
+            return false;
+        }
+        if (header.length < HEADER_SIZE) {
+            throw new IOException("Пакет изменений оборван");
+        }
+        ByteBuffer head = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        if (head.getInt() != MAGIC) {
+            throw new IOException("Поток не содержит пакет изменений");
+        }
+        long from = head.getLong();
+        long to = head.getLong();
+        int entries = head.getInt();
+        int length = head.getInt();
+        if (entries < 0 || length < 0 || to < from) {
+            throw new IOException("Поврежденный заголовок пакета изменений");
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) {
+            throw new IOException("Пакет изменений оборван");
+        }
+        if (from != version) {
+            throw new IllegalStateException("Пакет продолжает версию " + from + ", а версия реплики " + version);
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        check(records, entries);
+        records.rewind();
+        // прежние значения точек по примененным записям - для отката
+        byte[] undoCodes = new byte[entries];
+        int[] undoIndexes = new int[entries];
+        double[] undoXs = new double[entries];
+        double[] undoYs = new double[entries];
+        int applied = 0;
+        try {
+            for (; applied < entries; applied++) {
+                byte code = records.get();
+                undoCodes[applied] = code;
+                if (code == ADD) {
+                    double x = records.getDouble();
+                    function.addPoint(new FunctionPoint(x, records.getDouble()));
+                    undoXs[applied] = x;
+                    continue;
+                }
+                int index = getVarint(records);
+                undoIndexes[applied] = index;
+                undoXs[applied] = function.getPointX(index);
+                undoYs[applied] = function.getPointY(index);
+                if (code == DELETE) {
+                    function.deletePoint(index);
+                } else if (code == SET_Y) {
+                    function.setPointY(index, records.getDouble());
+                } else if (code == SET_X) {
+                    function.setPointX(index, records.getDouble());
+                } else {
+                    function.setPoint(index, new FunctionPoint(records.getDouble(), records.getDouble()));
+                }
+            }
+        } catch (IOException | RuntimeException | InappropriateFunctionPointException e) {
+            rollback(undoCodes, undoIndexes, undoXs, undoYs, applied, e);
+            throw e;
+        }
+
+        version = to;
+        baseVersion = to;
+        return true;
+    }
+
+    // Откат первых applied записей в обратном порядке. Отмена записи возвращает
+    // функцию в состояние, в котором запись применялась, поэтому порядок точек
+    // при откате не нарушается.
+    private void rollback(byte[] undoCodes, int[] undoIndexes, double[] undoXs, double[] undoYs,
+                          int applied, Exception failure) {
+        try {
+            for (int i = applied - 1; i >= 0; i--) {
+                byte code = undoCodes[i];
+                if (code == ADD) {
+                    function.deletePoint(indexOf(undoXs[i]));
+                } else if (code == DELETE) {
+                    function.addPoint(new FunctionPoint(undoXs[i], undoYs[i]));
+                } else if (code == SET_Y) {
+                    function.setPointY(undoIndexes[i], undoYs[i]);
+                } else if (code == SET_X) {
+                    function.setPointX(undoIndexes[i], undoXs[i]);
+                } else {
+                    function.setPoint(undoIndexes[i], new FunctionPoint(undoXs[i], undoYs[i]));
+                }
+            }
+        } catch (RuntimeException | InappropriateFunctionPointException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    // номер точки с абсциссой x
+    private int indexOf(double x) {
+        int left = 0;
+        int right = function.getPointsCount() - 1;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (function.getPointX(mid) < x) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    // разбор записей без применения
+    private static void check(ByteBuffer records, int entries) throws IOException {
+        try {
+            for (int i = 0; i < entries; i++) {
+                byte code = records.get();
+                if (code != ADD) {
+                    getVarint(records);
+                }
+                if (code == ADD || code == (SET_X | SET_Y)) {
+                    records.position(records.position() + 16);
+                } else if (code == SET_X || code == SET_Y) {
+                    records.position(records.position() + 8);
+                } else if (code != DELETE) {
+                    throw new IOException("Неизвестный код записи: " + code);
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Записи пакета изменений повреждены", e);
+        }
+        if (records.hasRemaining()) {
+            throw new IOException("Записи пакета изменений повреждены");
+        }
+    }
+
+    // номер точки - беззнаковый varint: по 7 бит в байте, старший бит - продолжение
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int varintSize(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+
+    private static int getVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                // пятый байт несет только 3 бита неотрицательного int
+                if (shift == 28 && b > 7) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IOException("Номер точки в пакете изменений поврежден");
+    }
+
+    // запись изменения, не сдвигающего номера точек
+    private void set(int index, byte code, double x, double y) {
+        version++;
+        int entry = find(index);
+        if (entry < 0 || ((code & SET_X) != 0 && entry != count - 1)) {
+            entry = append(code, index, x, y);
+            put(index, entry);
+            return;
+        }
+        codes[entry] |= code;
+        if ((code & SET_X) != 0) {
+            xs[entry] = x;
+        }
+        if ((code & SET_Y) != 0) {
+            ys[entry] = y;
+        }
+    }
+
+    // запись addPoint или deletePoint: номера точек сдвигаются, слияние начинается заново
+    private void shift(byte code, int index, double x, double y) {
+        version++;
+        append(code, index, x, y);
+        startEpoch();
+    }
+
+    private int append(byte code, int index, double x, double y) {
+        if (count == codes.length) {
+            int length = count + (count >> 1);
+            byte[] newCodes = new byte[length];
+            int[] newIndexes = new int[length];
+            double[] newXs = new double[length];
+            double[] newYs = new double[length];
+            System.arraycopy(codes, 0, newCodes, 0, count);
+            System.arraycopy(indexes, 0, newIndexes, 0, count);
+            System.arraycopy(xs, 0, newXs, 0, count);
+            System.arraycopy(ys, 0, newYs, 0, count);
+            codes = newCodes;
+            indexes = newIndexes;
+            xs = newXs;
+            ys = newYs;
+        }
+        codes[count] = code;
+        indexes[count] = index;
+        xs[count] = x;
+        ys[count] = y;
+        return count++;
+    }
+
+    private void startEpoch() {
+        epochStart = count;
+        slotsUsed = 0;
+        if (epoch == Integer.MAX_VALUE) {
+            slotEpochs = new int[slotEpochs.length];
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    // мультипликативное хеширование номера точки
+    private int home(int index) {
+        return (index * 0x9E3779B9) >>> (32 - slotBits);
+    }
+
+    private int find(int index) {
+        int mask = slotPoints.length - 1;
+        for (int slot = home(index); slotEpochs[slot] == epoch; slot = (slot + 1) & mask) {
+            if (slotPoints[slot] == index) {
+                return slotEntries[slot];
+            }
+        }
+        return -1;
+    }
+
+    private void put(int index, int entry) {
+        int mask = slotPoints.length - 1;
+        int slot = home(index);
+        while (slotEpochs[slot] == epoch) {
+            if (slotPoints[slot] == index) {
+                slotEntries[slot] = entry;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slotEpochs[slot] = epoch;
+        slotPoints[slot] = index;
+        slotEntries[slot] = entry;
+        // заполнено не больше половины ячеек
+        if (++slotsUsed > slotPoints.length >> 1) {
+            growSlots();
+        }
+    }
+
+    // таблица строится заново по записям текущей эпохи; более поздняя запись о точке заменяет раннюю
+    private void growSlots() {
+        slotBits++;
+        slotPoints = new int[1 << slotBits];
+        slotEntries = new int[1 << slotBits];
+        slotEpochs = new int[1 << slotBits];
+        slotsUsed = 0;
+        for (int entry = epochStart; entry < count; entry++) {
+            put(indexes[entry], entry);
+        }
+    }
+
+    public double getFunctionValue(double x) {
+        return function.getFunctionValue(x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        function.getFunctionValues(xs, out);
+    }
+
+    public int getPointsCount() {
+        return function.getPointsCount();
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return function.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        return function.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        return function.getPointY(index);
+    }
+
+    public double getLeftDomainBorder() {
+        return function.getLeftDomainBorder();
+    }
+
+    public double getRightDomainBorder() {
+        return function.getRightDomainBorder();
+    }
+
+    public void forEachPoint(DoubleBiConsumer action) {
+        function.forEachPoint(action);
+    }
+
+    public PointCursor cursor() {
+        return function.cursor();
+    }
+
+    public void copyXs(double[] target) {
+        function.copyXs(target);
+    }
+
+    public void copyYs(double[] target) {
+        function.copyYs(target);
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        function.setPoint(index, point);
+        set(index, (byte) (SET_X | SET_Y), point.getX(), point.getY());
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        function.setPointX(index, x);
+        set(index, SET_X, x, 0);
+    }
+
+    public void setPointY(int index, double y) {
+        function.setPointY(index, y);
+        set(index, SET_Y, 0, y);
+    }
+
+    public void deletePoint(int index) {
+        function.deletePoint(index);
+        shift(DELETE, index, 0, 0);
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        function.addPoint(point);
+        shift(ADD, 0, point.getX(), point.getY());
+    }
+
+    // неизменяемая копия самой функции, без журнала
+    public TabulatedFunction freeze() {
+        return function.freeze();
+    }
+}
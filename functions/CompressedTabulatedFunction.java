@@ -0,0 +1,493 @@
+package functions;
+
+// Неизменяемая табулированная функция для архива: точки хранятся сжатыми без
+// потерь блоками по BLOCK_SIZE точек в одном битовом потоке.
+// X кодируются разностями второго порядка: X переводится в long, упорядоченный
+// так же, как числа, и для почти равномерной сетки разность соседних разностей -
+// 0 или единицы младших разрядов, то есть 1-13 бит вместо 64. Y кодируются
+// XOR с предыдущим Y (как в Gorilla): одинаковые значения - 1 бит, у близких
+// значений сохраняются только отличающиеся биты.
+// Заголовок блока - первая точка без сжатия и начало блока в потоке; первые X
+// блоков заодно дают границы блоков, поэтому getFunctionValue бинарным поиском
+// по заголовкам выбирает блок и распаковывает только его начало до нужного
+// отрезка. Доступ по номеру тоже распаковывает часть одного блока, то есть
+// стоит O(BLOCK_SIZE). Методы изменения выбрасывают UnsupportedOperationException;
+// объект можно без синхронизации читать из нескольких потоков.
+public final class CompressedTabulatedFunction implements TabulatedFunction, BulkEvaluation {
+    static final int BLOCK_SIZE = 64;
+
+    private final int pointsCount;
+    private final int blockCount;
+    // заголовки блоков: первая точка и номер первого бита блока в потоке
+    private final double[] firstXs;
+    private final double[] firstYs;
+    private final long[] offsets;
+    private final double rightX;
+    // битовый поток, старшие биты слова - раньше
+    private final long[] words;
+
+    public CompressedTabulatedFunction(double leftX, double rightX, double[] values) {
+        this(encode(leftX, rightX, values));
+    }
+
+    private CompressedTabulatedFunction(Encoder encoder) {
+        pointsCount = encoder.count;
+        blockCount = (pointsCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        firstXs = trim(encoder.firstXs, blockCount);
+        firstYs = trim(encoder.firstYs, blockCount);
+        offsets = new long[blockCount];
+        System.arraycopy(encoder.offsets, 0, offsets, 0, blockCount);
+        rightX = encoder.lastX;
+        words = new long[(int) ((encoder.size + 63) >>> 6)];
+        System.arraycopy(encoder.words, 0, words, 0, words.length);
+    }
+
+    private static Encoder encode(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+        Encoder encoder = new Encoder(values.length);
+        double step = (rightX - leftX) / (values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            encoder.accept(leftX + i * step, values[i]);
+        }
+        return encoder;
+    }
+
+    // сжатая копия точек любой табулированной функции
+    public static CompressedTabulatedFunction copyOf(TabulatedFunction function) {
+        Encoder encoder = new Encoder(function.getPointsCount());
+        function.forEachPoint(encoder);
+        return new CompressedTabulatedFunction(encoder);
+    }
+
+    // память под точки: поток и заголовки блоков, в байтах
+    public long getCompressedBytes() {
+        return 8L * words.length + 24L * blockCount;
+    }
+
+    private static double[] trim(double[] array, int length) {
+        double[] trimmed = new double[length];
+        System.arraycopy(array, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    // X в long с тем же порядком, что у чисел; преобразование обратно себе
+    private static long sortable(long bits) {
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    // Запись точек по возрастанию X в поток
+    private static final class Encoder implements DoubleBiConsumer {
+        long[] words;
+        long size;
+        double[] firstXs;
+        double[] firstYs;
+        long[] offsets;
+        int count;
+        double lastX;
+
+        private long previousX;
+        private long previousDelta;
+        private long previousY;
+        // окно значащих битов предыдущего XOR; leading < 0 - окна нет
+        private int leading = -1;
+        private int trailing;
+
+        Encoder(int expectedCount) {
+            int blocks = (expectedCount + BLOCK_SIZE - 1) / BLOCK_SIZE + 1;
+            firstXs = new double[blocks];
+            firstYs = new double[blocks];
+            offsets = new long[blocks];
+            words = new long[Math.max(16, expectedCount / 8)];
+        }
+
+        public void accept(double x, double y) {
+            if (count > 0 && !(x - lastX >= 1e-10)) {
+                throw new IllegalArgumentException("Нарушена упорядоченность точек");
+            }
+            int position = count % BLOCK_SIZE;
+            long xBits = sortable(Double.doubleToRawLongBits(x));
+            long yBits = Double.doubleToRawLongBits(y);
+            if (position == 0) {
+                startBlock(count / BLOCK_SIZE, x, y);
+                previousDelta = 0;
+                leading = -1;
+            } else {
+                long delta = xBits - previousX;
+                writeDelta(delta - previousDelta);
+                previousDelta = delta;
+                writeXor(yBits ^ previousY);
+            }
+            previousX = xBits;
+            previousY = yBits;
+            lastX = x;
+            count++;
+        }
+
+        private void startBlock(int block, double x, double y) {
+            if (block == firstXs.length) {
+                int length = block + (block >> 1) + 1;
+                firstXs = grow(firstXs, length);
+                firstYs = grow(firstYs, length);
+                long[] larger = new long[length];
+                System.arraycopy(offsets, 0, larger, 0, block);
+                offsets = larger;
+            }
+            firstXs[block] = x;
+            firstYs[block] = y;
+            offsets[block] = size;
+        }
+
+        private static double[] grow(double[] array, int length) {
+            double[] larger = new double[length];
+            System.arraycopy(array, 0, larger, 0, array.length);
+            return larger;
+        }
+
+        // разность второго порядка: 0 - '0', до 7, 9 и 12 бит со знаком - '10', '110',
+        // '1110' и число, иначе '1111' и все 64 бита
+        private void writeDelta(long deltaOfDelta) {
+            if (deltaOfDelta == 0) {
+                write(0, 1);
+            } else if (deltaOfDelta >= -64 && deltaOfDelta < 64) {
+                write(0b10, 2);
+                write(deltaOfDelta, 7);
+            } else if (deltaOfDelta >= -256 && deltaOfDelta < 256) {
+                write(0b110, 3);
+                write(deltaOfDelta, 9);
+            } else if (deltaOfDelta >= -2048 && deltaOfDelta < 2048) {
+                write(0b1110, 4);
+                write(deltaOfDelta, 12);
+            } else {
+                write(0b1111, 4);
+                write(deltaOfDelta, 64);
+            }
+        }
+
+        // XOR с предыдущим Y: 0 - '0'; значащие биты помещаются в прошлое окно -
+        // '10' и биты окна; иначе '11', 5 бит ведущих нулей, 6 бит длины - 1 и биты
+        private void writeXor(long xor) {
+            if (xor == 0) {
+                write(0, 1);
+                return;
+            }
+            int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                write(0b10, 2);
+                write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int length = 64 - lead - trail;
+                write(0b11, 2);
+                write(lead, 5);
+                write(length - 1, 6);
+                write(xor >>> trail, length);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+
+        // младшие bits битов value, bits от 1 до 64
+        private void write(long value, int bits) {
+            if (bits < 64) {
+                value &= (1L << bits) - 1;
+            }
+            int word = (int) (size >>> 6);
+            int offset = (int) (size & 63);
+            if (word + 1 >= words.length) {
+                long[] larger = new long[words.length + (words.length >> 1)];
+                System.arraycopy(words, 0, larger, 0, words.length);
+                words = larger;
+            }
+            int free = 64 - offset;
+            if (bits <= free) {
+                words[word] |= value << (free - bits);
+            } else {
+                int rest = bits - free;
+                words[word] |= value >>> rest;
+                words[word + 1] |= value << (64 - rest);
+            }
+            size += bits;
+        }
+    }
+
+    // Последовательная распаковка точек, начиная с любого блока. Хранит
+    // текущую точку и предыдущую, поэтому заодно задает текущий отрезок.
+    private final class Reader implements PointCursor {
+        int index = -1;
+        double x;
+        double y;
+        double previousX;
+        double previousY;
+
+        private long position;
+        private long xBits;
+        private long delta;
+        private long yBits;
+        private int leading;
+        private int trailing;
+
+        // следующий next() даст первую точку блока
+        void seek(int block) {
+            index = block * BLOCK_SIZE - 1;
+            x = Double.NEGATIVE_INFINITY;
+        }
+
+        int block() {
+            return Math.max(index, 0) / BLOCK_SIZE;
+        }
+
+        public boolean next() {
+            if (index + 1 >= pointsCount) {
+                index = pointsCount;
+                return false;
+            }
+            index++;
+            previousX = x;
+            previousY = y;
+            if (index % BLOCK_SIZE == 0) {
+                startBlock(index / BLOCK_SIZE);
+                return true;
+            }
+
+            delta += readDelta();
+            xBits += delta;
+            x = Double.longBitsToDouble(sortable(xBits));
+            if (read(1) != 0) {
+                if (read(1) != 0) {
+                    leading = (int) read(5);
+                    int length = (int) read(6) + 1;
+                    trailing = 64 - leading - length;
+                }
+                yBits ^= read(64 - leading - trailing) << trailing;
+            }
+            y = Double.longBitsToDouble(yBits);
+            return true;
+        }
+
+        // первая точка блока - из заголовка
+        private void startBlock(int block) {
+            x = firstXs[block];
+            y = firstYs[block];
+            position = offsets[block];
+            xBits = sortable(Double.doubleToRawLongBits(x));
+            yBits = Double.doubleToRawLongBits(y);
+            delta = 0;
+        }
+
+        private long readDelta() {
+            if (read(1) == 0) {
+                return 0;
+            }
+            if (read(1) == 0) {
+                return signed(read(7), 7);
+            }
+            if (read(1) == 0) {
+                return signed(read(9), 9);
+            }
+            if (read(1) == 0) {
+                return signed(read(12), 12);
+            }
+            return read(64);
+        }
+
+        private long signed(long value, int bits) {
+            return value << (64 - bits) >> (64 - bits);
+        }
+
+        private long read(int bits) {
+            int word = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            position += bits;
+            int free = 64 - offset;
+            if (bits <= free) {
+                return (words[word] << offset) >>> (64 - bits);
+            }
+            int rest = bits - free;
+            long high = words[word] & ((1L << free) - 1);
+            return (high << rest) | (words[word + 1] >>> (64 - rest));
+        }
+
+        // переход к отрезку, содержащему target, по той же формуле, что
+        // Interpolation.segment: previousX < target <= x или первый отрезок.
+        // Аргументы могут только возрастать; дальний блок находится по заголовкам.
+        void advanceTo(double target) {
+            if (index > 0 && index < pointsCount && target <= x) {
+                return;
+            }
+            int block = blockOf(target);
+            if (block > block() || index < 0) {
+                seek(block);
+            }
+            while (index < 1 || x < target) {
+                next();
+            }
+        }
+
+        public double getX() {
+            checkPosition();
+            return x;
+        }
+
+        public double getY() {
+            checkPosition();
+            return y;
+        }
+
+        private void checkPosition() {
+            if (index < 0 || index >= pointsCount) {
+                throw new IllegalStateException("Курсор не указывает на точку");
+            }
+        }
+    }
+
+    // последний блок, первая точка которого левее x, или 0
+    private int blockOf(double x) {
+        int left = 0;
+        int right = blockCount - 1;
+        while (left < right) {
+            int mid = (left + right + 1) >>> 1;
+            if (firstXs[mid] < x) {
+                left = mid;
+            } else {
+                right = mid - 1;
+            }
+        }
+        return left;
+    }
+
+    // распаковка до точки index
+    private Reader readerAt(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+        Reader reader = new Reader();
+        reader.seek(index / BLOCK_SIZE);
+        while (reader.index < index) {
+            reader.next();
+        }
+        return reader;
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public double getLeftDomainBorder() {
+        return firstXs[0];
+    }
+
+    public double getRightDomainBorder() {
+        return rightX;
+    }
+
+    public double getFunctionValue(double x) {
+        // отрицание сравнений отсекает и NaN
+        if (!(x >= firstXs[0] && x <= rightX)) {
+            return Double.NaN;
+        }
+        Reader reader = new Reader();
+        reader.advanceTo(x);
+        return Interpolation.interpolate(reader.previousX, reader.x, reader.previousY, reader.y, x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // значения для части аргументов xs[from, to); упорядоченные аргументы
+    // вычисляются одним проходом, каждый блок распаковывается не больше раза
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        Interpolation.checkRange(xs, out, from, to);
+        if (!Interpolation.sorted(xs, from, to)) {
+            for (int i = from; i < to; i++) {
+                out[i] = getFunctionValue(xs[i]);
+            }
+            return;
+        }
+        Reader reader = new Reader();
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            if (!(x >= firstXs[0] && x <= rightX)) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            reader.advanceTo(x);
+            out[i] = Interpolation.interpolate(reader.previousX, reader.x, reader.previousY, reader.y, x);
+        }
+    }
+
+    public FunctionPoint getPoint(int index) {
+        Reader reader = readerAt(index);
+        return new FunctionPoint(reader.x, reader.y);
+    }
+
+    public double getPointX(int index) {
+        return readerAt(index).x;
+    }
+
+    public double getPointY(int index) {
+        return readerAt(index).y;
+    }
+
+    public TabulatedFunction freeze() {
+        return this;
+    }
+
+    public void forEachPoint(DoubleBiConsumer action) {
+        Reader reader = new Reader();
+        while (reader.next()) {
+            action.accept(reader.x, reader.y);
+        }
+    }
+
+    public PointCursor cursor() {
+        return new Reader();
+    }
+
+    public void copyXs(double[] target) {
+        checkTarget(target);
+        Reader reader = new Reader();
+        while (reader.next()) {
+            target[reader.index] = reader.x;
+        }
+    }
+
+    public void copyYs(double[] target) {
+        checkTarget(target);
+        Reader reader = new Reader();
+        while (reader.next()) {
+            target[reader.index] = reader.y;
+        }
+    }
+
+    private void checkTarget(double[] target) {
+        if (target.length < pointsCount) {
+            throw new IllegalArgumentException("Массив короче числа точек");
+        }
+    }
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+}
@@ -0,0 +1,229 @@
+package functions;
+
+import java.util.function.DoubleUnaryOperator;
+
+// Табулированная функция для совместного использования потоками.
+// Точки хранятся в неизменяемом снимке FrozenTabulatedFunction, ссылка на
+// который публикуется через volatile-поле: чтение - одно volatile-чтение без
+// блокировок, все обращения одного вызова видят согласованный набор точек.
+// Изменения выполняются под общей блокировкой копированием затронутых
+// массивов и публикацией нового снимка, поэтому стоят O(n) и подходят для
+// таблиц, которые читают гораздо чаще, чем меняют. freeze() возвращает
+// текущий снимок без копирования.
+public class ConcurrentTabulatedFunction implements TabulatedFunction {
+    private volatile FrozenTabulatedFunction snapshot;
+    private final Object writeLock = new Object();
+
+    public ConcurrentTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(leftX, rightX, new double[checkCount(pointsCount)]);
+    }
+
+    public ConcurrentTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        checkCount(values.length);
+
+        int count = values.length;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double step = (rightX - leftX) / (count - 1);
+        for (int i = 0; i < count; i++) {
+            xs[i] = leftX + i * step;
+        }
+        System.arraycopy(values, 0, ys, 0, count);
+        snapshot = new FrozenTabulatedFunction(xs, ys);
+    }
+
+    // копия точек другой функции; неизменяемая функция используется без копирования
+    public ConcurrentTabulatedFunction(TabulatedFunction function) {
+        TabulatedFunction frozen = function.freeze();
+        if (frozen instanceof FrozenTabulatedFunction) {
+            snapshot = (FrozenTabulatedFunction) frozen;
+            return;
+        }
+        int count = function.getPointsCount();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        function.copyXs(xs);
+        function.copyYs(ys);
+        snapshot = new FrozenTabulatedFunction(xs, ys);
+    }
+
+    private static int checkCount(int pointsCount) {
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+        return pointsCount;
+    }
+
+    private static void checkIndex(double[] xs, int index) {
+        if (index < 0 || index >= xs.length) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+    }
+
+    public int getPointsCount() {
+        return snapshot.getPointsCount();
+    }
+
+    public double getLeftDomainBorder() {
+        return snapshot.getLeftDomainBorder();
+    }
+
+    public double getRightDomainBorder() {
+        return snapshot.getRightDomainBorder();
+    }
+
+    public double getFunctionValue(double x) {
+        return snapshot.getFunctionValue(x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        snapshot.getFunctionValues(xs, out);
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return snapshot.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        return snapshot.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        return snapshot.getPointY(index);
+    }
+
+    // обход и копирование идут по одному снимку
+    public void forEachPoint(DoubleBiConsumer action) {
+        snapshot.forEachPoint(action);
+    }
+
+    public PointCursor cursor() {
+        return snapshot.cursor();
+    }
+
+    public void copyXs(double[] target) {
+        snapshot.copyXs(target);
+    }
+
+    public void copyYs(double[] target) {
+        snapshot.copyYs(target);
+    }
+
+    // текущий снимок; последующие изменения его не затрагивают
+    public TabulatedFunction freeze() {
+        return snapshot;
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        synchronized (writeLock) {
+            FrozenTabulatedFunction s = snapshot;
+            checkIndex(s.xs(), index);
+            checkOrder(s.xs(), index, point.getX());
+            double[] xs = s.xs().clone();
+            double[] ys = s.ys().clone();
+            xs[index] = point.getX();
+            ys[index] = point.getY();
+            snapshot = new FrozenTabulatedFunction(xs, ys);
+        }
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        synchronized (writeLock) {
+            FrozenTabulatedFunction s = snapshot;
+            checkIndex(s.xs(), index);
+            checkOrder(s.xs(), index, x);
+            // массив ординат не меняется и остается общим со старым снимком
+            double[] xs = s.xs().clone();
+            xs[index] = x;
+            snapshot = new FrozenTabulatedFunction(xs, s.ys());
+        }
+    }
+
+    private static void checkOrder(double[] xs, int index, double x) throws InappropriateFunctionPointException {
+        if ((index > 0 && x <= xs[index - 1]) ||
+                (index < xs.length - 1 && x >= xs[index + 1])) {
+            throw new InappropriateFunctionPointException("Нарушена упорядоченность точек");
+        }
+    }
+
+    public void setPointY(int index, double y) {
+        synchronized (writeLock) {
+            FrozenTabulatedFunction s = snapshot;
+            checkIndex(s.xs(), index);
+            double[] ys = s.ys().clone();
+            ys[index] = y;
+            snapshot = new FrozenTabulatedFunction(s.xs(), ys);
+        }
+    }
+
+    // замена всех ординат для ParallelTabulation.mapY: читатели видят либо
+    // старые значения, либо все новые
+    void mapY(ParallelTabulation parallel, DoubleUnaryOperator operator) {
+        synchronized (writeLock) {
+            FrozenTabulatedFunction s = snapshot;
+            double[] ys = s.ys().clone();
+            parallel.map(ys, ys.length, operator);
+            snapshot = new FrozenTabulatedFunction(s.xs(), ys);
+        }
+    }
+
+    public void deletePoint(int index) {
+        synchronized (writeLock) {
+            double[] oldXs = snapshot.xs();
+            double[] oldYs = snapshot.ys();
+            checkIndex(oldXs, index);
+            int count = oldXs.length;
+            if (count < 3) {
+                throw new IllegalStateException("Нельзя удалить точку: меньше 3 точек");
+            }
+
+            double[] xs = new double[count - 1];
+            double[] ys = new double[count - 1];
+            System.arraycopy(oldXs, 0, xs, 0, index);
+            System.arraycopy(oldYs, 0, ys, 0, index);
+            System.arraycopy(oldXs, index + 1, xs, index, count - index - 1);
+            System.arraycopy(oldYs, index + 1, ys, index, count - index - 1);
+            snapshot = new FrozenTabulatedFunction(xs, ys);
+        }
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double x = point.getX();
+        if (Double.isNaN(x)) {
+            throw new InappropriateFunctionPointException("X точки не является числом");
+        }
+        synchronized (writeLock) {
+            double[] oldXs = snapshot.xs();
+            double[] oldYs = snapshot.ys();
+            int count = oldXs.length;
+
+            int insertIndex = 0;
+            int right = count;
+            while (insertIndex < right) {
+                int mid = (insertIndex + right) >>> 1;
+                if (oldXs[mid] < x) {
+                    insertIndex = mid + 1;
+                } else {
+                    right = mid;
+                }
+            }
+            if ((insertIndex < count && Math.abs(oldXs[insertIndex] - x) < 1e-10) ||
+                    (insertIndex > 0 && Math.abs(oldXs[insertIndex - 1] - x) < 1e-10)) {
+                throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+            }
+
+            double[] xs = new double[count + 1];
+            double[] ys = new double[count + 1];
+            System.arraycopy(oldXs, 0, xs, 0, insertIndex);
+            System.arraycopy(oldYs, 0, ys, 0, insertIndex);
+            xs[insertIndex] = x;
+            ys[insertIndex] = point.getY();
+            System.arraycopy(oldXs, insertIndex, xs, insertIndex + 1, count - insertIndex);
+            System.arraycopy(oldYs, insertIndex, ys, insertIndex + 1, count - insertIndex);
+            snapshot = new FrozenTabulatedFunction(xs, ys);
+        }
+    }
+}
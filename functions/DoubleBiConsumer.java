@@ -0,0 +1,7 @@
+package functions;
+
+// Действие над точкой без упаковки координат в объекты
+@FunctionalInterface
+public interface DoubleBiConsumer {
+    void accept(double x, double y);
+}
@@ -0,0 +1,171 @@
+package functions;
+
+import java.math.BigInteger;
+
+// Разбор десятичной записи числа из char-массива без создания строк.
+// Результат совпадает с Double.parseDouble: сначала быстрый путь Клингера
+// (точная мантисса и степень десяти), затем алгоритм Айзеля-Лемира по
+// 128-битным приближениям степеней пятерки; неоднозначные и особые записи
+// (NaN, Infinity, 20 и больше значащих цифр) разбираются Double.parseDouble.
+final class DoubleParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MIN_EXPONENT = -342;
+    private static final int MAX_EXPONENT = 308;
+    // старшие и младшие 64 бита нормализованной мантиссы 5^q (для q < 0 - с округлением вверх)
+    private static final long[] POWER_HIGH = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+    private static final long[] POWER_LOW = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+            BigInteger power;
+            if (q >= 0) {
+                power = BigInteger.valueOf(5).pow(q);
+                power = power.bitLength() > 128 ? power.shiftRight(power.bitLength() - 128)
+                        : power.shiftLeft(128 - power.bitLength());
+            } else {
+                BigInteger divisor = BigInteger.valueOf(5).pow(-q);
+                int z = divisor.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                power = BigInteger.ONE.shiftLeft(b).divide(divisor).add(BigInteger.ONE);
+                if (power.bitLength() > 128) {
+                    power = power.shiftRight(power.bitLength() - 128);
+                }
+            }
+            POWER_HIGH[q - MIN_EXPONENT] = power.shiftRight(64).longValue();
+            POWER_LOW[q - MIN_EXPONENT] = power.and(mask).longValue();
+        }
+    }
+
+    private DoubleParser() {
+    }
+
+    static double parse(char[] chars, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        for (; i < to && chars[i] >= '0' && chars[i] <= '9'; i++) {
+            any = true;
+            if (digits < 19) {
+                mantissa = mantissa * 10 + (chars[i] - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                digits++;
+                scale++;
+            }
+        }
+        if (i < to && chars[i] == '.') {
+            i++;
+            for (; i < to && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                any = true;
+                if (digits < 19) {
+                    mantissa = mantissa * 10 + (chars[i] - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    scale--;
+                } else {
+                    digits++;
+                }
+            }
+        }
+        if (any && i < to && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int exponent = 0;
+            boolean anyExponent = false;
+            for (; i < to && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                anyExponent = true;
+                if (exponent < 100_000) {
+                    exponent = exponent * 10 + (chars[i] - '0');
+                }
+            }
+            any = anyExponent;
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        if (any && i == to && digits <= 19) {
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            // быстрый путь: оба множителя точны, результат округляется один раз
+            if (Long.compareUnsigned(mantissa, 1L << 53) <= 0 && scale >= -22 && scale <= 22) {
+                double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+                return negative ? -value : value;
+            }
+            long bits = eiselLemire(mantissa, scale);
+            if (bits >= 0) {
+                return Double.longBitsToDouble(bits | (negative ? Long.MIN_VALUE : 0));
+            }
+        }
+        return Double.parseDouble(new String(chars, from, to - from));
+    }
+
+    // биты модуля mantissa * 10^exponent или -1, если результат нельзя получить однозначно
+    private static long eiselLemire(long mantissa, int exponent) {
+        if (exponent < MIN_EXPONENT || exponent > MAX_EXPONENT) {
+            return -1;
+        }
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= leadingZeros;
+        long exponent2 = (217706L * exponent >> 16) + 64 + 1023 - leadingZeros;
+
+        int index = exponent - MIN_EXPONENT;
+        long high = unsignedMultiplyHigh(mantissa, POWER_HIGH[index]);
+        long low = mantissa * POWER_HIGH[index];
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0) {
+            long secondHigh = unsignedMultiplyHigh(mantissa, POWER_LOW[index]);
+            long secondLow = mantissa * POWER_LOW[index];
+            long mergedLow = low + secondHigh;
+            long mergedHigh = Long.compareUnsigned(mergedLow, low) < 0 ? high + 1 : high;
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+                    && Long.compareUnsigned(secondLow + mantissa, mantissa) < 0) {
+                return -1;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        long upper = high >>> 63;
+        long result = high >>> (upper + 9);
+        exponent2 -= 1 ^ upper;
+        // ровно посередине между соседними числами
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            return -1;
+        }
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            exponent2++;
+        }
+        // денормализованные числа и переполнение
+        if (exponent2 <= 0 || exponent2 >= 0x7FF) {
+            return -1;
+        }
+        return exponent2 << 52 | (result & 0x000FFFFFFFFFFFFFL);
+    }
+
+    // старшие 64 бита беззнакового произведения (Math.unsignedMultiplyHigh есть только с JDK 18)
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -0,0 +1,267 @@
+package functions;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Служба вычисления значений общей функции для множества потоков (в том числе
+// виртуальных): evaluate(x) ставит запрос в очередь и сразу возвращает
+// CompletableFuture. Отдельный поток собирает запросы в пачки - пачка
+// отправляется, когда в ней batchSize запросов или когда первый запрос ждет
+// latencyBudget, - упорядочивает аргументы и вычисляет их одним вызовом
+// getFunctionValues, то есть одним проходом по таблице. Пока поток занят
+// пачкой, новые запросы копятся, поэтому под нагрузкой пачки растут сами.
+// Блокировка - ReentrantLock: в отличие от synchronized, ожидание на ней не
+// занимает поток-носитель виртуального потока.
+// Функцию нельзя менять во время работы службы иначе, чем через
+// потокобезопасную реализацию (ConcurrentTabulatedFunction).
+// Будущие завершаются в потоке пачек, и зависимые от них действия выполняются
+// там же, поэтому они не должны надолго блокироваться. Если поток пачек
+// завершится аварийно, служба закрывается, а ждущие запросы завершаются с
+// его исключением.
+public class EvaluationService implements AutoCloseable {
+    public static final long DEFAULT_LATENCY_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final TabulatedFunction function;
+    private final long latencyBudget;
+    private final int batchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // поток пачек ждет первого запроса, заполнения пачки или закрытия
+    private final Condition arrived = lock.newCondition();
+    private final Thread batcher;
+
+    // накапливаемые запросы; поток пачек меняет их местами со своими массивами
+    private double[] pendingXs;
+    private CompletableFuture<Double>[] pendingFutures;
+    private int pending;
+    private long firstArrival;
+    private boolean closed;
+
+    private double[] batchXs;
+    private CompletableFuture<Double>[] batchFutures;
+
+    private long batches;
+    private long requests;
+
+    public EvaluationService(TabulatedFunction function) {
+        this(function, DEFAULT_LATENCY_BUDGET_NANOS, DEFAULT_BATCH_SIZE);
+    }
+
+    public EvaluationService(TabulatedFunction function, long latencyBudgetNanos, int batchSize) {
+        if (latencyBudgetNanos < 0) {
+            throw new IllegalArgumentException("Бюджет задержки не может быть отрицательным");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.function = function;
+        this.latencyBudget = latencyBudgetNanos;
+        this.batchSize = batchSize;
+        pendingXs = new double[batchSize];
+        pendingFutures = futures(batchSize);
+        batchXs = new double[batchSize];
+        batchFutures = futures(batchSize);
+        batcher = new Thread(this::run, "evaluation-service");
+        batcher.setDaemon(true);
+        batcher.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Double>[] futures(int length) {
+        return (CompletableFuture<Double>[]) new CompletableFuture<?>[length];
+    }
+
+    public TabulatedFunction getFunction() {
+        return function;
+    }
+
+    // значение в x; после close() - будущее, завершенное IllegalStateException
+    public CompletableFuture<Double> evaluate(double x) {
+        CompletableFuture<Double> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("Служба вычислений закрыта"));
+                return future;
+            }
+            if (pending == pendingXs.length) {
+                growPending();
+            }
+            pendingXs[pending] = x;
+            pendingFutures[pending] = future;
+            pending++;
+            if (pending == 1) {
+                firstArrival = System.nanoTime();
+                arrived.signal();
+            } else if (pending == batchSize) {
+                arrived.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    private void growPending() {
+        int length = pending + (pending >> 1);
+        double[] xs = new double[length];
+        CompletableFuture<Double>[] futures = futures(length);
+        System.arraycopy(pendingXs, 0, xs, 0, pending);
+        System.arraycopy(pendingFutures, 0, futures, 0, pending);
+        pendingXs = xs;
+        pendingFutures = futures;
+    }
+
+    public long getBatches() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRequests() {
+        lock.lock();
+        try {
+            return requests;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // новые запросы отклоняются, уже принятые вычисляются до выхода; вызов из
+    // действия над будущим, выполняемого потоком пачек, не ждет - поток
+    // вычислит принятые запросы, когда действие вернет управление
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            arrived.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() == batcher) {
+            return;
+        }
+        boolean interrupted = false;
+        while (batcher.isAlive()) {
+            try {
+                batcher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            batches();
+        } catch (Throwable e) {
+            abort(e);
+            throw e;
+        }
+    }
+
+    // служба закрывается; принятые и еще не завершенные запросы завершаются с исключением failure
+    private void abort(Throwable failure) {
+        CompletableFuture<Double>[] waiting;
+        int count;
+        lock.lock();
+        try {
+            closed = true;
+            waiting = pendingFutures;
+            count = pending;
+            pending = 0;
+        } finally {
+            lock.unlock();
+        }
+        for (int k = 0; k < count; k++) {
+            waiting[k].completeExceptionally(failure);
+        }
+        // завершенные будущие пачки уже убраны из массива
+        for (CompletableFuture<Double> future : batchFutures) {
+            if (future != null) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void batches() {
+        while (true) {
+            int count;
+            lock.lock();
+            try {
+                while (pending == 0 && !closed) {
+                    arrived.awaitUninterruptibly();
+                }
+                if (pending == 0) {
+                    return;
+                }
+                // срок отсчитывается от первого запроса пачки
+                long deadline = firstArrival + latencyBudget;
+                while (pending < batchSize && !closed) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    try {
+                        arrived.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+
+                double[] xs = pendingXs;
+                CompletableFuture<Double>[] futures = pendingFutures;
+                pendingXs = batchXs.length >= batchSize ? batchXs : new double[batchSize];
+                pendingFutures = batchFutures.length >= batchSize ? batchFutures : futures(batchSize);
+                batchXs = xs;
+                batchFutures = futures;
+                count = pending;
+                pending = 0;
+                batches++;
+                requests += count;
+            } finally {
+                lock.unlock();
+            }
+            evaluate(batchXs, batchFutures, count);
+        }
+    }
+
+    // аргументы пачки упорядочиваются, значения вычисляются одним проходом
+    private void evaluate(double[] xs, CompletableFuture<Double>[] futures, int count) {
+        double[] values = null;
+        int[] order = null;
+        Throwable failure = null;
+        try {
+            order = Sorting.order(xs, count);
+            double[] sorted = new double[count];
+            for (int k = 0; k < count; k++) {
+                sorted[k] = xs[order[k]];
+            }
+            values = new double[count];
+            function.getFunctionValues(sorted, values);
+        } catch (Throwable e) {
+            // и Error: поток пачек продолжает работу, запросы не остаются без ответа
+            failure = e;
+        }
+
+        for (int k = 0; k < count; k++) {
+            int request = order != null ? order[k] : k;
+            CompletableFuture<Double> future = futures[request];
+            futures[request] = null;
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(values[k]);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package functions;
+
+// Внутренние узлы X[1..count-2] в порядке обхода дерева поиска в ширину:
+// потомки узла k - узлы 2k и 2k + 1. Номер отрезка - число узлов меньше x,
+// то есть позиция первого узла не меньше x среди упорядоченных
+final class EytzingerSegmentIndex implements SegmentIndex {
+    private final int size;
+    private final double[] keys;
+    // позиция узла в упорядоченном массиве
+    private final int[] ranks;
+
+    EytzingerSegmentIndex(double[] xs, int count) {
+        size = count - 2;
+        keys = new double[size + 1];
+        ranks = new int[size + 1];
+        fill(xs, 1, 0);
+    }
+
+    // симметричный обход заполняет дерево по возрастанию
+    private int fill(double[] xs, int node, int position) {
+        if (node <= size) {
+            position = fill(xs, 2 * node, position);
+            keys[node] = xs[position + 1];
+            ranks[node] = position;
+            position = fill(xs, 2 * node + 1, position + 1);
+        }
+        return position;
+    }
+
+    public int segment(double x) {
+        int node = 1;
+        while (node <= size) {
+            // знаковый бит разности вместо ветвления: 1, если keys[node] < x
+            // (разность различных чисел double не бывает нулем)
+            node = (node << 1) | (int) (Double.doubleToRawLongBits(keys[node] - x) >>> 63);
+        }
+        // последний поворот налево - узел, первый не меньший x
+        node >>= Integer.numberOfTrailingZeros(~node) + 1;
+        return node == 0 ? size : ranks[node];
+    }
+
+    // высота дерева; пути к разным листьям отличаются не больше чем на один узел
+    public int depth(double x, int segment) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+}
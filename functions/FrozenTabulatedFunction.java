@@ -0,0 +1,144 @@
+package functions;
+
+// Неизменяемая табулированная функция: точки в массивах точно по их числу,
+// методы изменения выбрасывают UnsupportedOperationException. Объект можно
+// без копирования и синхронизации передавать между потоками и кэшировать.
+// Получается методом freeze() любой табулированной функции.
+public final class FrozenTabulatedFunction implements TabulatedFunction, BulkEvaluation {
+    private final double[] xs;
+    private final double[] ys;
+
+    public FrozenTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+
+        int count = values.length;
+        xs = new double[count];
+        ys = new double[count];
+        double step = (rightX - leftX) / (count - 1);
+        for (int i = 0; i < count; i++) {
+            xs[i] = leftX + i * step;
+        }
+        System.arraycopy(values, 0, ys, 0, count);
+    }
+
+    // функция над готовыми массивами; массивы не копируются и не должны меняться после вызова
+    FrozenTabulatedFunction(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    double[] xs() {
+        return xs;
+    }
+
+    double[] ys() {
+        return ys;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= xs.length) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+    }
+
+    public int getPointsCount() {
+        return xs.length;
+    }
+
+    public double getLeftDomainBorder() {
+        return xs[0];
+    }
+
+    public double getRightDomainBorder() {
+        return xs[xs.length - 1];
+    }
+
+    public double getFunctionValue(double x) {
+        // отрицание сравнений отсекает и NaN
+        if (!(x >= xs[0] && x <= xs[xs.length - 1])) {
+            return Double.NaN;
+        }
+        return Interpolation.interpolate(xs, ys, Interpolation.segment(xs, xs.length, x), x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // значения для части аргументов xs[from, to)
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        Interpolation.checkRange(xs, out, from, to);
+        Interpolation.values(this.xs, ys, this.xs.length, xs, out, from, to);
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs[index], ys[index]);
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public TabulatedFunction freeze() {
+        return this;
+    }
+
+    // обход точек без создания FunctionPoint
+    public void forEachPoint(DoubleBiConsumer action) {
+        for (int i = 0; i < xs.length; i++) {
+            action.accept(xs[i], ys[i]);
+        }
+    }
+
+    public PointCursor cursor() {
+        return new ArrayPointCursor(xs, ys, xs.length);
+    }
+
+    public void copyXs(double[] target) {
+        checkTarget(target);
+        System.arraycopy(xs, 0, target, 0, xs.length);
+    }
+
+    public void copyYs(double[] target) {
+        checkTarget(target);
+        System.arraycopy(ys, 0, target, 0, xs.length);
+    }
+
+    private void checkTarget(double[] target) {
+        if (target.length < xs.length) {
+            throw new IllegalArgumentException("Массив короче числа точек");
+        }
+    }
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+}
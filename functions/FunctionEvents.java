@@ -0,0 +1,60 @@
+package functions;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// События JFR для InstrumentedTabulatedFunction. Пока запись JFR не идет,
+// shouldCommit() возвращает false и событие стоит одну проверку
+final class FunctionEvents {
+    private FunctionEvents() {
+    }
+
+    // вычисление, попавшее в выборку замера длительности; выключено по умолчанию
+    @Name("functions.Evaluation")
+    @Label("Tabulated Function Evaluation")
+    @Category("Tabulated Functions")
+    @Enabled(false)
+    static final class Evaluation extends Event {
+        @Label("Argument")
+        double x;
+        @Label("Value")
+        double y;
+    }
+
+    @Name("functions.BulkEvaluation")
+    @Label("Tabulated Function Bulk Evaluation")
+    @Category("Tabulated Functions")
+    static final class BulkEvaluation extends Event {
+        @Label("Arguments")
+        int arguments;
+    }
+
+    // изменение точек; для addPoint номер не известен и равен -1
+    @Name("functions.Mutation")
+    @Label("Tabulated Function Mutation")
+    @Category("Tabulated Functions")
+    static final class Mutation extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Index")
+        int index;
+        @Label("Points Count")
+        int pointsCount;
+    }
+
+    // перенос точек ArrayTabulatedFunction в массивы большей емкости
+    @Name("functions.Resize")
+    @Label("Tabulated Function Resize")
+    @Category("Tabulated Functions")
+    static final class Resize extends Event {
+        @Label("Old Capacity")
+        int oldCapacity;
+        @Label("New Capacity")
+        int newCapacity;
+        @Label("Points")
+        int points;
+    }
+}
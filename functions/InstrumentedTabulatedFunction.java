@@ -0,0 +1,183 @@
+package functions;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Декоратор, собирающий метрики использования функции в TabulatedFunctionMetrics
+// (их можно зарегистрировать в JMX) и отправляющий события JFR. Для
+// ArrayTabulatedFunction дополнительно учитываются глубина поиска отрезка,
+// расширения массивов и сдвиги точек. После setEnabled(false) каждый вызов
+// стоит одну проверку флага и передается функции без изменений.
+// BulkEvaluation декоратор не реализует: можно ли читать функцию из нескольких
+// потоков, зависит от нее самой, поэтому ParallelTabulation вычисляет по freeze().
+public class InstrumentedTabulatedFunction implements TabulatedFunction {
+    private final TabulatedFunction function;
+    private final TabulatedFunctionMetrics metrics;
+    private volatile boolean enabled;
+
+    public InstrumentedTabulatedFunction(TabulatedFunction function) {
+        this(function, new TabulatedFunctionMetrics());
+    }
+
+    // метрики можно разделить между несколькими функциями
+    public InstrumentedTabulatedFunction(TabulatedFunction function, TabulatedFunctionMetrics metrics) {
+        this.function = function;
+        this.metrics = metrics;
+        this.enabled = true;
+        if (function instanceof ArrayTabulatedFunction) {
+            ((ArrayTabulatedFunction) function).setMetrics(metrics);
+        }
+    }
+
+    public TabulatedFunction getFunction() {
+        return function;
+    }
+
+    public TabulatedFunctionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (function instanceof ArrayTabulatedFunction) {
+            ((ArrayTabulatedFunction) function).setMetrics(enabled ? metrics : null);
+        }
+    }
+
+    public double getFunctionValue(double x) {
+        if (!enabled) {
+            return function.getFunctionValue(x);
+        }
+        if ((ThreadLocalRandom.current().nextInt() & TabulatedFunctionMetrics.SAMPLE_MASK) != 0) {
+            double y = function.getFunctionValue(x);
+            metrics.evaluated(y);
+            return y;
+        }
+        FunctionEvents.Evaluation event = new FunctionEvents.Evaluation();
+        event.begin();
+        long start = System.nanoTime();
+        double y = function.getFunctionValue(x);
+        metrics.evaluationTimed(System.nanoTime() - start);
+        metrics.evaluated(y);
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.y = y;
+            event.commit();
+        }
+        return y;
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        if (!enabled) {
+            function.getFunctionValues(xs, out);
+            return;
+        }
+        FunctionEvents.BulkEvaluation event = new FunctionEvents.BulkEvaluation();
+        event.begin();
+        long start = System.nanoTime();
+        function.getFunctionValues(xs, out);
+        metrics.bulkEvaluated(out, 0, xs.length, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.arguments = xs.length;
+            event.commit();
+        }
+    }
+
+    public int getPointsCount() {
+        return function.getPointsCount();
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return function.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        return function.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        return function.getPointY(index);
+    }
+
+    public void forEachPoint(DoubleBiConsumer action) {
+        function.forEachPoint(action);
+    }
+
+    public PointCursor cursor() {
+        return function.cursor();
+    }
+
+    public void copyXs(double[] target) {
+        function.copyXs(target);
+    }
+
+    public void copyYs(double[] target) {
+        function.copyYs(target);
+    }
+
+    public double getLeftDomainBorder() {
+        return function.getLeftDomainBorder();
+    }
+
+    public double getRightDomainBorder() {
+        return function.getRightDomainBorder();
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        function.setPoint(index, point);
+        if (enabled) {
+            metrics.mutated();
+            mutation("setPoint", index);
+        }
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        function.setPointX(index, x);
+        if (enabled) {
+            metrics.mutated();
+            mutation("setPointX", index);
+        }
+    }
+
+    public void setPointY(int index, double y) {
+        function.setPointY(index, y);
+        if (enabled) {
+            metrics.mutated();
+            mutation("setPointY", index);
+        }
+    }
+
+    public void deletePoint(int index) {
+        function.deletePoint(index);
+        if (enabled) {
+            metrics.deleted();
+            mutation("deletePoint", index);
+        }
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        function.addPoint(point);
+        if (enabled) {
+            metrics.inserted();
+            mutation("addPoint", -1);
+        }
+    }
+
+    private void mutation(String operation, int index) {
+        FunctionEvents.Mutation event = new FunctionEvents.Mutation();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.index = index;
+            event.pointsCount = function.getPointsCount();
+            event.commit();
+        }
+    }
+
+    // неизменяемая копия самой функции, без учета метрик
+    public TabulatedFunction freeze() {
+        return function.freeze();
+    }
+}
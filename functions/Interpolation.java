@@ -0,0 +1,153 @@
+package functions;
+
+// Поиск отрезка и линейная интерполяция по упорядоченным массивам точек;
+// общие для реализаций, хранящих точки в массивах
+final class Interpolation {
+    // ядро для наборов аргументов: векторное, если оно собрано из каталога vector
+    // (build.sh), при запуске подключен модуль jdk.incubator.vector
+    // (--add-modules jdk.incubator.vector) и не задано -Dfunctions.kernel=scalar,
+    // иначе скалярное
+    private static final InterpolationKernel KERNEL = loadKernel();
+
+    private Interpolation() {
+    }
+
+    private static InterpolationKernel loadKernel() {
+        if (!"scalar".equals(System.getProperty("functions.kernel"))) {
+            try {
+                return (InterpolationKernel) Class.forName("functions.VectorInterpolationKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // ядро не собрано, модуль не подключен или нет векторных инструкций
+            }
+        }
+        return new ScalarInterpolationKernel();
+    }
+
+    // значения для аргументов args[from, to); границы проверены вызывающим
+    static void values(double[] xs, double[] ys, int count, double[] args, double[] out, int from, int to) {
+        values(xs, ys, count, args, out, from, to, sorted(args, from, to));
+    }
+
+    static void values(double[] xs, double[] ys, int count, double[] args, double[] out, int from, int to,
+                       boolean sorted) {
+        KERNEL.values(xs, ys, count, args, out, from, to, sorted);
+    }
+
+    // аргументы args[from, to) не убывают (NaN нарушает порядок)
+    static boolean sorted(double[] args, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (!(args[i] >= args[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // то же для равномерной сетки, X точки i равен origin + (firstIndex + i) * step,
+    // Y - ys[offset + i]; поиск не нужен, поэтому порядок аргументов не важен
+    static void uniformValues(double origin, double step, int firstIndex, double[] ys, int offset, int count,
+                              double[] args, double[] out, int from, int to) {
+        KERNEL.uniformValues(origin, step, firstIndex, ys, offset, count, args, out, from, to);
+    }
+
+    // проверка диапазона [from, to) для getFunctionValues
+    static void checkRange(double[] args, double[] out, int from, int to) {
+        if (out.length < args.length) {
+            throw new IllegalArgumentException("Массив результатов короче массива аргументов");
+        }
+        if (from < 0 || from > to || to > args.length) {
+            throw new IndexOutOfBoundsException("Диапазон [" + from + ", " + to + ") вне массива аргументов");
+        }
+    }
+
+    // наибольший номер i из [0, count - 2], для которого xs[i] < x, или 0: бинарный
+    // поиск без сравнений с погрешностью, половина выбирается без ветвления
+    static int segment(double[] xs, int count, double x) {
+        int base = 0;
+        int length = count - 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = xs[base + half] < x ? base + half : base;
+            length -= half;
+        }
+        return base;
+    }
+
+    // то же с ветвлением: на таблицах больше кэша процессор, угадывая переход,
+    // заранее начинает загрузку следующего узла, и это выгоднее отсутствия
+    // ошибок предсказания
+    static int segmentBranching(double[] xs, int count, double x) {
+        int left = 0;
+        int right = count - 2;
+        while (left < right) {
+            int mid = (left + right + 1) >>> 1;
+            if (xs[mid] < x) {
+                left = mid;
+            } else {
+                right = mid - 1;
+            }
+        }
+        return left;
+    }
+
+    // номер отрезка [xs[i], xs[i + 1]], содержащего x, начиная поиск с отрезка from:
+    // шаги удваиваются, затем бинарный поиск в найденном диапазоне
+    static int advanceSegment(double[] xs, int count, int from, double x) {
+        int last = count - 2;
+        int lo = from;
+        int step = 1;
+        while (lo + step <= last && xs[lo + step] < x) {
+            lo += step;
+            step <<= 1;
+        }
+        int hi = Math.min(lo + step, last);
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (xs[mid] < x) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    static double interpolate(double[] xs, double[] ys, int segment, double x) {
+        return interpolate(xs[segment], xs[segment + 1], ys[segment], ys[segment + 1], x);
+    }
+
+    static double interpolate(double x1, double x2, double y1, double y2, double x) {
+        if (Math.abs(x1 - x) < 1e-10) {
+            return y1;
+        }
+        if (Math.abs(x2 - x) < 1e-10) {
+            return y2;
+        }
+        double k = (y2 - y1) / (x2 - x1);
+        return k * (x - x1) + y1;
+    }
+
+    // номер отрезка равномерной сетки, X точки i равен origin + (firstIndex + i) * step;
+    // x внутри области определения
+    static int uniformSegment(double origin, double step, int firstIndex, int count, double x) {
+        int index = (int) ((x - (origin + firstIndex * step)) / step);
+        if (index > count - 2) {
+            index = count - 2;
+        }
+        // поправка на ошибку округления при делении
+        if (index > 0 && x < origin + (firstIndex + index) * step) {
+            index--;
+        } else if (index < count - 2 && x > origin + (firstIndex + index + 1) * step) {
+            index++;
+        }
+        return index;
+    }
+
+    static double interpolateUniform(double origin, double step, int firstIndex, double[] ys, int offset,
+                                     int count, double x) {
+        int index = uniformSegment(origin, step, firstIndex, count, x);
+        return interpolate(origin + (firstIndex + index) * step, origin + (firstIndex + index + 1) * step,
+                ys[offset + index], ys[offset + index + 1], x);
+    }
+}
@@ -0,0 +1,15 @@
+package functions;
+
+// Вычисление значений для набора аргументов по упорядоченным массивам точек.
+// Реализации: ScalarInterpolationKernel и VectorInterpolationKernel (jdk.incubator.vector);
+// результаты обеих совпадают побитно. Вычисляются out[i] для i из [from, to),
+// границы уже проверены
+interface InterpolationKernel {
+    // sorted - аргументы не убывают: отрезок можно искать от предыдущего
+    void values(double[] xs, double[] ys, int count, double[] args, double[] out, int from, int to,
+                boolean sorted);
+
+    // равномерная сетка: X точки i равен origin + (firstIndex + i) * step, Y - ys[offset + i]
+    void uniformValues(double origin, double step, int firstIndex, double[] ys, int offset, int count,
+                       double[] args, double[] out, int from, int to);
+}
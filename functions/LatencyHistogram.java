@@ -0,0 +1,66 @@
+package functions;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма длительностей с интервалами по степеням двойки наносекунд:
+// запись - одно увеличение счетчика LongAdder без блокировок, точность
+// квантилей - в пределах интервала (в 2 раза)
+final class LatencyHistogram {
+    private final LongAdder[] buckets = new LongAdder[64];
+    private final LongAdder totalNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    // интервал i - длительности из [2^(i-1), 2^i)
+    void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+        totalNanos.add(nanos);
+    }
+
+    long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    double meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    // верхняя граница интервала, в который попадает квантиль q
+    long percentileNanos(double q) {
+        long[] counts = new long[buckets.length];
+        long count = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : i == 63 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+}
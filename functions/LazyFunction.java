@@ -0,0 +1,532 @@
+package functions;
+
+import java.util.function.DoubleUnaryOperator;
+
+// Отложенные вычисления над табулированными функциями: f.plus(g), f.times(c),
+// f.compose(g) и т. п. строят дерево выражения без промежуточных таблиц.
+// Значение в точке вычисляется одним проходом по дереву, таблица создается
+// только методами tabulate. Исходные функции не копируются: их изменения
+// видны при следующем вычислении.
+//
+// Область определения суммы и произведения - пересечение областей операндов,
+// композиции f(g(x)) - область g; вне области значение NaN.
+public abstract class LazyFunction {
+    // размер пачки аргументов при массовом вычислении
+    static final int CHUNK = 512;
+
+    LazyFunction() {
+    }
+
+    public static LazyFunction of(TabulatedFunction function) {
+        return new Leaf(function);
+    }
+
+    public abstract double getLeftDomainBorder();
+
+    public abstract double getRightDomainBorder();
+
+    public abstract double getFunctionValue(double x);
+
+    // Аргументы обрабатываются пачками по CHUNK: каждый узел вычисляет значения
+    // для всей пачки (табулированная функция - одним проходом по упорядоченным
+    // аргументам), промежуточные значения лежат в буферах на пачку, по одному на
+    // уровень дерева, а не в массивах на все аргументы
+    public void getFunctionValues(double[] xs, double[] out) {
+        if (out.length < xs.length) {
+            throw new IllegalArgumentException("Массив результатов короче массива аргументов");
+        }
+        int chunk = Math.min(CHUNK, xs.length);
+        double[][] scratch = new double[height()][chunk];
+        double[] arguments = new double[chunk];
+        double[] values = new double[chunk];
+        for (int from = 0; from < xs.length; from += chunk) {
+            int count = Math.min(chunk, xs.length - from);
+            System.arraycopy(xs, from, arguments, 0, count);
+            values(arguments, values, count, scratch, 0);
+            System.arraycopy(values, 0, out, from, count);
+        }
+    }
+
+    // значения для первых count аргументов; буферы scratch начиная с depth свободны
+    abstract void values(double[] xs, double[] out, int count, double[][] scratch, int depth);
+
+    // число буферов на пачку, нужных values
+    abstract int height();
+
+    // упорядоченные X, на которых выражение меняет наклон, в пределах области
+    // определения, включая ее границы
+    abstract double[] knots();
+
+    public LazyFunction plus(LazyFunction other) {
+        return new Sum(this, other);
+    }
+
+    public LazyFunction plus(TabulatedFunction other) {
+        return plus(of(other));
+    }
+
+    public LazyFunction plus(double constant) {
+        return new Affine(this, 1, constant);
+    }
+
+    public LazyFunction minus(LazyFunction other) {
+        return new Sum(this, other.times(-1));
+    }
+
+    public LazyFunction minus(TabulatedFunction other) {
+        return minus(of(other));
+    }
+
+    public LazyFunction times(LazyFunction other) {
+        return new Product(this, other);
+    }
+
+    public LazyFunction times(TabulatedFunction other) {
+        return times(of(other));
+    }
+
+    public LazyFunction times(double constant) {
+        return new Affine(this, constant, 0);
+    }
+
+    // this(inner(x))
+    public LazyFunction compose(LazyFunction inner) {
+        return new Composition(this, inner);
+    }
+
+    public LazyFunction compose(TabulatedFunction inner) {
+        return compose(of(inner));
+    }
+
+    // operator(this(x))
+    public LazyFunction map(DoubleUnaryOperator operator) {
+        return new Mapped(this, operator);
+    }
+
+    // Таблица на объединении узлов всех табулированных функций выражения (для
+    // композиции - и прообразов узлов внешней функции). Суммы, умножения на
+    // константу и композиции кусочно-линейных функций на этой сетке
+    // восстанавливаются точно; произведение и map - с погрешностью интерполяции.
+    public ArrayTabulatedFunction tabulate() {
+        double[] xs = knots();
+        return tabulateOn(xs, xs.length);
+    }
+
+    // таблица на равномерной сетке
+    public UniformTabulatedFunction tabulate(double leftX, double rightX, int pointsCount) {
+        UniformTabulatedFunction result = new UniformTabulatedFunction(leftX, rightX, pointsCount);
+        double[] xs = new double[pointsCount];
+        result.copyXs(xs);
+        double[] ys = new double[pointsCount];
+        getFunctionValues(xs, ys);
+        for (int i = 0; i < pointsCount; i++) {
+            result.setPointY(i, ys[i]);
+        }
+        return result;
+    }
+
+    // таблица на заданной сетке; массив не меняется
+    public ArrayTabulatedFunction tabulate(double[] xs) {
+        if (xs.length < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+        for (int i = 1; i < xs.length; i++) {
+            if (!(xs[i] > xs[i - 1])) {
+                throw new IllegalArgumentException("Нарушена упорядоченность точек");
+            }
+        }
+        return tabulateOn(xs.clone(), xs.length);
+    }
+
+    private ArrayTabulatedFunction tabulateOn(double[] xs, int count) {
+        if (count < 2) {
+            throw new IllegalStateException("Область определения выражения вырождена в точку");
+        }
+        double[] ys = new double[count];
+        getFunctionValues(xs, ys);
+        return new ArrayTabulatedFunction(xs, ys, count);
+    }
+
+    // объединение упорядоченных наборов узлов в пределах [left, right] без
+    // повторов; границы области входят в результат
+    static double[] merge(double[] a, double[] b, double left, double right) {
+        double[] merged = new double[a.length + b.length + 2];
+        int count = 0;
+        merged[count++] = left;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            double x = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (x > merged[count - 1] && x < right) {
+                merged[count++] = x;
+            }
+        }
+        if (right > merged[count - 1]) {
+            merged[count++] = right;
+        }
+        return trim(merged, count);
+    }
+
+    static double[] trim(double[] array, int count) {
+        if (count == array.length) {
+            return array;
+        }
+        double[] trimmed = new double[count];
+        System.arraycopy(array, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    private static void checkOverlap(LazyFunction left, LazyFunction right) {
+        if (Math.max(left.getLeftDomainBorder(), right.getLeftDomainBorder())
+                > Math.min(left.getRightDomainBorder(), right.getRightDomainBorder())) {
+            throw new IllegalArgumentException("Области определения не пересекаются");
+        }
+    }
+
+    private static final class Leaf extends LazyFunction {
+        private final TabulatedFunction function;
+
+        Leaf(TabulatedFunction function) {
+            this.function = function;
+        }
+
+        public double getLeftDomainBorder() {
+            return function.getLeftDomainBorder();
+        }
+
+        public double getRightDomainBorder() {
+            return function.getRightDomainBorder();
+        }
+
+        public double getFunctionValue(double x) {
+            return function.getFunctionValue(x);
+        }
+
+        // массовое вычисление самой таблицы, например одним проходом по упорядоченным аргументам
+        void values(double[] xs, double[] out, int count, double[][] scratch, int depth) {
+            if (function instanceof BulkEvaluation) {
+                ((BulkEvaluation) function).getFunctionValues(xs, out, 0, count);
+            } else if (count == xs.length) {
+                function.getFunctionValues(xs, out);
+            } else {
+                // неполная последняя пачка: getFunctionValues без диапазона - по копии точной длины
+                double[] arguments = new double[count];
+                double[] values = new double[count];
+                System.arraycopy(xs, 0, arguments, 0, count);
+                function.getFunctionValues(arguments, values);
+                System.arraycopy(values, 0, out, 0, count);
+            }
+        }
+
+        int height() {
+            return 0;
+        }
+
+        double[] knots() {
+            double[] xs = new double[function.getPointsCount()];
+            function.copyXs(xs);
+            return xs;
+        }
+    }
+
+    private static final class Sum extends LazyFunction {
+        private final LazyFunction left;
+        private final LazyFunction right;
+
+        Sum(LazyFunction left, LazyFunction right) {
+            checkOverlap(left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        public double getLeftDomainBorder() {
+            return Math.max(left.getLeftDomainBorder(), right.getLeftDomainBorder());
+        }
+
+        public double getRightDomainBorder() {
+            return Math.min(left.getRightDomainBorder(), right.getRightDomainBorder());
+        }
+
+        // вне области любого из операндов он дает NaN, и сумма - тоже
+        public double getFunctionValue(double x) {
+            return left.getFunctionValue(x) + right.getFunctionValue(x);
+        }
+
+        void values(double[] xs, double[] out, int count, double[][] scratch, int depth) {
+            left.values(xs, out, count, scratch, depth);
+            double[] rightValues = scratch[depth];
+            right.values(xs, rightValues, count, scratch, depth + 1);
+            for (int i = 0; i < count; i++) {
+                out[i] = out[i] + rightValues[i];
+            }
+        }
+
+        int height() {
+            return Math.max(left.height(), right.height() + 1);
+        }
+
+        double[] knots() {
+            return merge(left.knots(), right.knots(), getLeftDomainBorder(), getRightDomainBorder());
+        }
+    }
+
+    private static final class Product extends LazyFunction {
+        private final LazyFunction left;
+        private final LazyFunction right;
+
+        Product(LazyFunction left, LazyFunction right) {
+            checkOverlap(left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        public double getLeftDomainBorder() {
+            return Math.max(left.getLeftDomainBorder(), right.getLeftDomainBorder());
+        }
+
+        public double getRightDomainBorder() {
+            return Math.min(left.getRightDomainBorder(), right.getRightDomainBorder());
+        }
+
+        public double getFunctionValue(double x) {
+            return left.getFunctionValue(x) * right.getFunctionValue(x);
+        }
+
+        void values(double[] xs, double[] out, int count, double[][] scratch, int depth) {
+            left.values(xs, out, count, scratch, depth);
+            double[] rightValues = scratch[depth];
+            right.values(xs, rightValues, count, scratch, depth + 1);
+            for (int i = 0; i < count; i++) {
+                out[i] = out[i] * rightValues[i];
+            }
+        }
+
+        int height() {
+            return Math.max(left.height(), right.height() + 1);
+        }
+
+        double[] knots() {
+            return merge(left.knots(), right.knots(), getLeftDomainBorder(), getRightDomainBorder());
+        }
+    }
+
+    // scale * f(x) + shift
+    private static final class Affine extends LazyFunction {
+        private final LazyFunction function;
+        private final double scale;
+        private final double shift;
+
+        Affine(LazyFunction function, double scale, double shift) {
+            this.function = function;
+            this.scale = scale;
+            this.shift = shift;
+        }
+
+        public double getLeftDomainBorder() {
+            return function.getLeftDomainBorder();
+        }
+
+        public double getRightDomainBorder() {
+            return function.getRightDomainBorder();
+        }
+
+        public double getFunctionValue(double x) {
+            return scale * function.getFunctionValue(x) + shift;
+        }
+
+        // константы применяются к результату массового вычисления операнда
+        void values(double[] xs, double[] out, int count, double[][] scratch, int depth) {
+            function.values(xs, out, count, scratch, depth);
+            for (int i = 0; i < count; i++) {
+                out[i] = scale * out[i] + shift;
+            }
+        }
+
+        int height() {
+            return function.height();
+        }
+
+        // повторные умножения и сдвиги сворачиваются в один узел
+        public LazyFunction plus(double constant) {
+            return new Affine(function, scale, shift + constant);
+        }
+
+        public LazyFunction times(double constant) {
+            return new Affine(function, scale * constant, shift * constant);
+        }
+
+        double[] knots() {
+            return function.knots();
+        }
+    }
+
+    private static final class Composition extends LazyFunction {
+        private final LazyFunction outer;
+        private final LazyFunction inner;
+
+        Composition(LazyFunction outer, LazyFunction inner) {
+            this.outer = outer;
+            this.inner = inner;
+        }
+
+        public double getLeftDomainBorder() {
+            return inner.getLeftDomainBorder();
+        }
+
+        public double getRightDomainBorder() {
+            return inner.getRightDomainBorder();
+        }
+
+        // значения внутренней функции вне области внешней дают NaN; выход за
+        // границу на погрешность округления (например, в прообразе границы)
+        // считается попаданием на границу
+        public double getFunctionValue(double x) {
+            double u = inner.getFunctionValue(x);
+            double y = outer.getFunctionValue(u);
+            return y != y ? atBorder(u) : y;
+        }
+
+        private double atBorder(double u) {
+            double left = outer.getLeftDomainBorder();
+            double right = outer.getRightDomainBorder();
+            if (u < left && left - u < 1e-10) {
+                return outer.getFunctionValue(left);
+            }
+            if (u > right && u - right < 1e-10) {
+                return outer.getFunctionValue(right);
+            }
+            return Double.NaN;
+        }
+
+        // значения внутренней функции - аргументы внешней; внешняя таблица
+        // сама выбирает проход по упорядоченным или поиск для остальных
+        void values(double[] xs, double[] out, int count, double[][] scratch, int depth) {
+            double[] us = scratch[depth];
+            inner.values(xs, us, count, scratch, depth + 1);
+            outer.values(us, out, count, scratch, depth + 1);
+            for (int i = 0; i < count; i++) {
+                if (out[i] != out[i]) {
+                    out[i] = atBorder(us[i]);
+                }
+            }
+        }
+
+        int height() {
+            return Math.max(inner.height(), outer.height()) + 1;
+        }
+
+        // узлы внутренней функции и точки, где она проходит через узлы внешней:
+        // на отрезке между узлами внутренняя функция линейна, и прообраз узла u
+        // внешней находится из линейного уравнения
+        double[] knots() {
+            double[] xs = inner.knots();
+            double[] us = outer.knots();
+            double[] gs = new double[xs.length];
+            inner.getFunctionValues(xs, gs);
+
+            double[] result = new double[xs.length * 2];
+            int count = 0;
+            for (int i = 0; i < xs.length; i++) {
+                if (count == result.length) {
+                    double[] grown = new double[result.length * 2];
+                    System.arraycopy(result, 0, grown, 0, count);
+                    result = grown;
+                }
+                result[count++] = xs[i];
+                if (i + 1 == xs.length || !(gs[i] == gs[i]) || !(gs[i + 1] == gs[i + 1])) {
+                    continue;
+                }
+                boolean rising = gs[i + 1] > gs[i];
+                double low = Math.min(gs[i], gs[i + 1]);
+                double high = Math.max(gs[i], gs[i + 1]);
+                // узлы внешней функции строго между значениями на концах отрезка
+                int from = upperBound(us, low);
+                int to = lowerBound(us, high);
+                if (from >= to) {
+                    continue;
+                }
+                if (count + (to - from) > result.length) {
+                    double[] grown = new double[Math.max(result.length * 2, count + (to - from) + xs.length)];
+                    System.arraycopy(result, 0, grown, 0, count);
+                    result = grown;
+                }
+                for (int k = 0; k < to - from; k++) {
+                    double u = us[rising ? from + k : to - 1 - k];
+                    double x = xs[i] + (u - gs[i]) * (xs[i + 1] - xs[i]) / (gs[i + 1] - gs[i]);
+                    // округление не должно нарушить порядок узлов
+                    if (x > result[count - 1] && x < xs[i + 1]) {
+                        result[count++] = x;
+                    }
+                }
+            }
+            return trim(result, count);
+        }
+
+        // число узлов не больше value
+        private static int upperBound(double[] us, double value) {
+            int left = 0;
+            int right = us.length;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (us[mid] <= value) {
+                    left = mid + 1;
+                } else {
+                    right = mid;
+                }
+            }
+            return left;
+        }
+
+        // число узлов меньше value
+        private static int lowerBound(double[] us, double value) {
+            int left = 0;
+            int right = us.length;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (us[mid] < value) {
+                    left = mid + 1;
+                } else {
+                    right = mid;
+                }
+            }
+            return left;
+        }
+    }
+
+    private static final class Mapped extends LazyFunction {
+        private final LazyFunction function;
+        private final DoubleUnaryOperator operator;
+
+        Mapped(LazyFunction function, DoubleUnaryOperator operator) {
+            this.function = function;
+            this.operator = operator;
+        }
+
+        public double getLeftDomainBorder() {
+            return function.getLeftDomainBorder();
+        }
+
+        public double getRightDomainBorder() {
+            return function.getRightDomainBorder();
+        }
+
+        public double getFunctionValue(double x) {
+            return operator.applyAsDouble(function.getFunctionValue(x));
+        }
+
+        void values(double[] xs, double[] out, int count, double[][] scratch, int depth) {
+            function.values(xs, out, count, scratch, depth);
+            for (int i = 0; i < count; i++) {
+                out[i] = operator.applyAsDouble(out[i]);
+            }
+        }
+
+        int height() {
+            return function.height();
+        }
+
+        double[] knots() {
+            return function.knots();
+        }
+    }
+}
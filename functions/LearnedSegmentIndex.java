@@ -0,0 +1,77 @@
+package functions;
+
+// Номер отрезка как кусочно-линейная функция X: область определения делится
+// на равные части, для начала каждой запоминается номер отрезка, внутри части
+// номер интерполируется. Предсказание уточняется поиском с удвоением шага от
+// него, так что ошибка модели стоит O(log ошибки), а не O(log n).
+final class LearnedSegmentIndex implements SegmentIndex {
+    // точек на одну часть модели
+    private static final int POINTS_PER_BUCKET = 4;
+
+    private final double[] xs;
+    private final int count;
+    private final double origin;
+    private final double scale;
+    private final int buckets;
+    // first[b] - отрезок, содержащий начало части b
+    private final int[] first;
+
+    LearnedSegmentIndex(double[] xs, int count) {
+        this.xs = xs;
+        this.count = count;
+        this.origin = xs[0];
+        this.buckets = Math.max(1, count / POINTS_PER_BUCKET);
+        this.scale = buckets / (xs[count - 1] - xs[0]);
+        this.first = new int[buckets + 1];
+        int segment = 0;
+        for (int b = 0; b <= buckets; b++) {
+            double start = origin + b / scale;
+            while (segment < count - 2 && xs[segment + 1] < start) {
+                segment++;
+            }
+            first[b] = segment;
+        }
+    }
+
+    private int predict(double x) {
+        double position = (x - origin) * scale;
+        int b = Math.min((int) position, buckets - 1);
+        // при округлении доля может немного превысить 1
+        return Math.min(first[b] + (int) ((position - b) * (first[b + 1] - first[b])), count - 2);
+    }
+
+    public int segment(double x) {
+        int predicted = predict(x);
+        if (predicted > 0 && !(xs[predicted] < x)) {
+            return retreatSegment(predicted, x);
+        }
+        return Interpolation.advanceSegment(xs, count, predicted, x);
+    }
+
+    // проверка предсказания, затем удвоение шага и бинарный поиск на расстояние ошибки
+    public int depth(double x, int segment) {
+        int error = Math.abs(segment - predict(x));
+        return 1 + 2 * (32 - Integer.numberOfLeadingZeros(error));
+    }
+
+    // отрезок левее from: шаги назад удваиваются, затем бинарный поиск
+    private int retreatSegment(int from, double x) {
+        int hi = from - 1;
+        int step = 1;
+        while (hi - step > 0 && !(xs[hi - step] < x)) {
+            hi -= step;
+            step <<= 1;
+        }
+        int lo = Math.max(hi - step, 0);
+        // xs[lo] < x или lo = 0; xs[hi + 1] не меньше x
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (xs[mid] < x) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+}
@@ -14,6 +14,9 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
 
     private FunctionNode head; // голова списка
     private int pointsCount;
+    // последний узел, к которому было обращение, и его номер
+    private FunctionNode lastNode;
+    private int lastIndex;
 
     // конструкторы
     public LinkedListTabulatedFunction(double leftX, double rightX, int pointsCount) {
@@ -49,6 +52,7 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
         head.next = head;
         head.prev = head;
         pointsCount = 0;
+        lastNode = null;
     }
 
     // добавление узла в конец
@@ -74,8 +78,12 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
             return addNodeToTail();
         }
 
+        return addNodeBefore(getNodeByIndex(index), index);
+    }
+
+    // вставка нового узла перед target, index - номер, который получит новый узел
+    private FunctionNode addNodeBefore(FunctionNode target, int index) {
         FunctionNode newNode = new FunctionNode(null);
-        FunctionNode target = getNodeByIndex(index);
         FunctionNode prevNode = target.prev;
 
         prevNode.next = newNode;
@@ -84,6 +92,8 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
         target.prev = newNode;
 
         pointsCount++;
+        lastNode = newNode;
+        lastIndex = index;
         return newNode;
     }
 
@@ -97,18 +107,48 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
         toDelete.next.prev = toDelete.prev;
         pointsCount--;
 
+        // номер следующего узла стал равен index
+        if (toDelete.next != head) {
+            lastNode = toDelete.next;
+            lastIndex = index;
+        } else {
+            lastNode = null;
+        }
         return toDelete;
     }
 
-    // получение узла по индексу
+    // получение узла по индексу: обход начинается с ближайшего из
+    // головы, хвоста и последнего запрошенного узла
     private FunctionNode getNodeByIndex(int index) {
         if (index < 0 || index >= pointsCount)
             throw new FunctionPointIndexOutOfBoundsException(index);
 
-        FunctionNode current = head.next;
-        for (int i = 0; i < index; i++) {
+        FunctionNode current;
+        int currentIndex;
+        int fromTail = pointsCount - 1 - index;
+        if (index <= fromTail) {
+            current = head.next;
+            currentIndex = 0;
+        } else {
+            current = head.prev;
+            currentIndex = pointsCount - 1;
+        }
+        if (lastNode != null && Math.abs(index - lastIndex) < Math.min(index, fromTail)) {
+            current = lastNode;
+            currentIndex = lastIndex;
+        }
+
+        while (currentIndex < index) {
             current = current.next;
+            currentIndex++;
+        }
+        while (currentIndex > index) {
+            current = current.prev;
+            currentIndex--;
         }
+
+        lastNode = current;
+        lastIndex = index;
         return current;
     }
 
@@ -124,12 +164,16 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
     }
 
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
-        if (index > 0 && x <= getPointX(index - 1))
+        setNodeX(getNodeByIndex(index), x);
+    }
+
+    private void setNodeX(FunctionNode node, double x) throws InappropriateFunctionPointException {
+        if (node.prev != head && x <= node.prev.point.getX())
             throw new InappropriateFunctionPointException("X must be greater than previous point");
-        if (index < pointsCount - 1 && x >= getPointX(index + 1))
+        if (node.next != head && x >= node.next.point.getX())
             throw new InappropriateFunctionPointException("X must be less than next point");
 
-        getNodeByIndex(index).point.setX(x);
+        node.point.setX(x);
     }
 
     public void setPointY(int index, double y) {
@@ -137,41 +181,79 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
     }
 
     public double getLeftDomainBorder() {
-        return pointsCount > 0 ? getPointX(0) : Double.NaN;
+        return pointsCount > 0 ? head.next.point.getX() : Double.NaN;
     }
 
     public double getRightDomainBorder() {
-        return pointsCount > 0 ? getPointX(pointsCount - 1) : Double.NaN;
+        return pointsCount > 0 ? head.prev.point.getX() : Double.NaN;
     }
 
     public double getFunctionValue(double x) {
         if (x < getLeftDomainBorder() || x > getRightDomainBorder())
             return Double.NaN;
 
-        for (int i = 0; i < pointsCount - 1; i++) {
-            double x1 = getPointX(i);
-            double x2 = getPointX(i + 1);
+        // один проход по узлам без обращений по номеру
+        for (FunctionNode node = head.next; node.next != head; node = node.next) {
+            double x1 = node.point.getX();
+            double x2 = node.next.point.getX();
             if (x >= x1 && x <= x2) {
-                double y1 = getPointY(i);
-                double y2 = getPointY(i + 1);
+                double y1 = node.point.getY();
+                double y2 = node.next.point.getY();
                 return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
             }
         }
         return Double.NaN;
     }
 
-    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
-        for (int i = 0; i < pointsCount; i++) {
-            if (Math.abs(getPointX(i) - point.getX()) < 1e-10)
-                throw new InappropriateFunctionPointException("Point with this X already exists");
+    public void getFunctionValues(double[] xs, double[] out) {
+        if (out.length < xs.length)
+            throw new IllegalArgumentException("Output array is shorter than input array");
+
+        // неупорядоченные аргументы вычисляются по одному
+        for (int i = 1; i < xs.length; i++) {
+            if (!(xs[i] >= xs[i - 1])) {
+                for (int j = 0; j < xs.length; j++) {
+                    out[j] = getFunctionValue(xs[j]);
+                }
+                return;
+            }
+        }
+
+        // упорядоченные - за один проход по узлам списка
+        double left = head.next.point.getX();
+        double right = head.prev.point.getX();
+        FunctionNode current = head.next;
+        for (int i = 0; i < xs.length; i++) {
+            double x = xs[i];
+            if (x < left || x > right) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            while (current.next.next != head && current.next.point.getX() < x) {
+                current = current.next;
+            }
+            double x1 = current.point.getX();
+            double x2 = current.next.point.getX();
+            double y1 = current.point.getY();
+            double y2 = current.next.point.getY();
+            out[i] = y1 + (y2 - y1) * (x - x1) / (x2 - x1);
         }
+    }
 
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        // поиск первого узла с X не меньше добавляемого; ближайшие к точке
+        // X - у него и у предыдущего, дубликат может быть только среди них
+        FunctionNode target = head.next;
         int insertIndex = 0;
-        while (insertIndex < pointsCount && getPointX(insertIndex) < point.getX()) {
+        while (target != head && target.point.getX() < point.getX()) {
+            target = target.next;
             insertIndex++;
         }
+        if ((target != head && Math.abs(target.point.getX() - point.getX()) < 1e-10) ||
+                (target.prev != head && Math.abs(target.prev.point.getX() - point.getX()) < 1e-10))
+            throw new InappropriateFunctionPointException("Point with this X already exists");
 
-        FunctionNode newNode = addNodeByIndex(insertIndex);
+        FunctionNode newNode = addNodeBefore(target, insertIndex);
         newNode.point = new FunctionPoint(point);
     }
 
@@ -180,12 +262,84 @@ public class LinkedListTabulatedFunction implements TabulatedFunction {
         deleteNodeByIndex(index);
     }
 
+    public TabulatedFunction freeze() {
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        int i = 0;
+        for (FunctionNode node = head.next; node != head; node = node.next) {
+            xs[i] = node.point.getX();
+            ys[i] = node.point.getY();
+            i++;
+        }
+        return new FrozenTabulatedFunction(xs, ys);
+    }
+
+    // обход и копирование за один проход по узлам, без создания FunctionPoint
+    public void forEachPoint(DoubleBiConsumer action) {
+        for (FunctionNode node = head.next; node != head; node = node.next) {
+            action.accept(node.point.getX(), node.point.getY());
+        }
+    }
+
+    public PointCursor cursor() {
+        return new NodeCursor();
+    }
+
+    public void copyXs(double[] target) {
+        if (target.length < pointsCount)
+            throw new IllegalArgumentException("Target array is shorter than points count");
+        int i = 0;
+        for (FunctionNode node = head.next; node != head; node = node.next) {
+            target[i++] = node.point.getX();
+        }
+    }
+
+    public void copyYs(double[] target) {
+        if (target.length < pointsCount)
+            throw new IllegalArgumentException("Target array is shorter than points count");
+        int i = 0;
+        for (FunctionNode node = head.next; node != head; node = node.next) {
+            target[i++] = node.point.getY();
+        }
+    }
+
+    private class NodeCursor implements PointCursor {
+        // head - позиция до первой точки и после последней
+        private FunctionNode current = head;
+        private boolean finished;
+
+        public boolean next() {
+            if (finished || current.next == head) {
+                finished = true;
+                current = head;
+                return false;
+            }
+            current = current.next;
+            return true;
+        }
+
+        public double getX() {
+            return point().getX();
+        }
+
+        public double getY() {
+            return point().getY();
+        }
+
+        private FunctionPoint point() {
+            if (current == head)
+                throw new IllegalStateException("Cursor is not positioned on a point");
+            return current.point;
+        }
+    }
+
     public FunctionPoint getPoint(int index) {
         return new FunctionPoint(getNodeByIndex(index).point);
     }
 
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
-        setPointX(index, point.getX());
-        setPointY(index, point.getY());
+        FunctionNode node = getNodeByIndex(index);
+        setNodeX(node, point.getX());
+        node.point.setY(point.getY());
     }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package functions;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+// Параллельные операции над большими таблицами в ForkJoinPool: вычисление
+// значений для массива аргументов, построение таблицы и преобразование ординат.
+// Массив делится пополам, пока части не станут меньше length / (4 * parallelism),
+// так что свободные потоки забирают части у занятых. Массивы короче порога
+// обрабатываются в вызывающем потоке.
+// Функцию нельзя менять, пока идет операция над ней, как и при обычном обходе;
+// ConcurrentTabulatedFunction можно менять - используется ее снимок.
+public final class ParallelTabulation {
+    // порог по умолчанию: меньше ~1 мс работы делить невыгодно
+    public static final int DEFAULT_THRESHOLD = 1 << 15;
+    // наименьшая часть, которая отдается отдельной задаче
+    private static final int MIN_CHUNK = 1 << 12;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelTabulation() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    // threshold - наименьшее число аргументов или точек, с которого работа делится между потоками
+    public ParallelTabulation(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Порог распараллеливания должен быть положительным");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    // out[i] = function.getFunctionValue(xs[i]); каждая часть массива ищет отрезки сама,
+    // упорядоченная часть - одним проходом по таблице
+    public void getFunctionValues(TabulatedFunction function, double[] xs, double[] out) {
+        if (out.length < xs.length) {
+            throw new IllegalArgumentException("Массив результатов короче массива аргументов");
+        }
+        // функции, которые нельзя читать из нескольких потоков (у списка - кэш
+        // последнего узла), вычисляются по неизменяемой копии
+        TabulatedFunction source = function instanceof BulkEvaluation ? function : function.freeze();
+        if (source instanceof BulkEvaluation) {
+            BulkEvaluation bulk = (BulkEvaluation) source;
+            run(xs.length, (from, to) -> bulk.getFunctionValues(xs, out, from, to));
+        } else {
+            run(xs.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    out[i] = source.getFunctionValue(xs[i]);
+                }
+            });
+        }
+    }
+
+    // то же, что new ArrayTabulatedFunction(leftX, rightX, values)
+    public ArrayTabulatedFunction tabulate(double leftX, double rightX, double[] values) {
+        checkDomain(leftX, rightX, values.length);
+        int count = values.length;
+        double[] xs = new double[count + 10];
+        double[] ys = new double[count + 10];
+        double step = (rightX - leftX) / (count - 1);
+        run(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                xs[i] = leftX + i * step;
+            }
+            System.arraycopy(values, from, ys, from, to - from);
+        });
+        return new ArrayTabulatedFunction(xs, ys, count);
+    }
+
+    // таблица значений function в pointsCount равноотстоящих точках [leftX, rightX]
+    public ArrayTabulatedFunction tabulate(DoubleUnaryOperator function, double leftX, double rightX,
+                                           int pointsCount) {
+        checkDomain(leftX, rightX, pointsCount);
+        double[] xs = new double[pointsCount + 10];
+        double[] ys = new double[pointsCount + 10];
+        double step = (rightX - leftX) / (pointsCount - 1);
+        run(pointsCount, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                xs[i] = leftX + i * step;
+                ys[i] = function.applyAsDouble(xs[i]);
+            }
+        });
+        return new ArrayTabulatedFunction(xs, ys, pointsCount);
+    }
+
+    // замена каждой ординаты y на operator(y)
+    public void mapY(TabulatedFunction function, DoubleUnaryOperator operator) {
+        if (function instanceof ArrayTabulatedFunction) {
+            map(((ArrayTabulatedFunction) function).ys(), function.getPointsCount(), operator);
+        } else if (function instanceof UniformTabulatedFunction) {
+            map(((UniformTabulatedFunction) function).ys(), function.getPointsCount(), operator);
+        } else if (function instanceof ConcurrentTabulatedFunction) {
+            ((ConcurrentTabulatedFunction) function).mapY(this, operator);
+        } else {
+            // остальные меняются только через интерфейс; неизменяемые бросят исключение
+            for (int i = 0; i < function.getPointsCount(); i++) {
+                function.setPointY(i, operator.applyAsDouble(function.getPointY(i)));
+            }
+        }
+    }
+
+    void map(double[] ys, int count, DoubleUnaryOperator operator) {
+        run(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                ys[i] = operator.applyAsDouble(ys[i]);
+            }
+        });
+    }
+
+    private static void checkDomain(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+    }
+
+    private void run(int length, Range body) {
+        if (length < threshold || pool.getParallelism() == 1) {
+            body.run(0, length);
+            return;
+        }
+        int chunk = Math.max(MIN_CHUNK, length / (4 * pool.getParallelism()));
+        pool.invoke(new RangeTask(body, 0, length, chunk));
+    }
+
+    // обработка части [from, to) массива
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    // задачи ForkJoin сериализуемы формально; тело не сериализуется
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Range body;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        RangeTask(Range body, int from, int to, int chunk) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        protected void compute() {
+            if (to - from <= chunk) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(body, from, middle, chunk), new RangeTask(body, middle, to, chunk));
+        }
+    }
+}
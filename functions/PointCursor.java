@@ -0,0 +1,12 @@
+package functions;
+
+// Последовательный обход точек без создания FunctionPoint:
+//   PointCursor cursor = f.cursor();
+//   while (cursor.next()) { ... cursor.getX() ... cursor.getY() ... }
+// Изменение функции во время обхода делает результат неопределенным
+public interface PointCursor {
+    // переход к следующей точке; false, если точек больше нет
+    boolean next();
+    double getX();
+    double getY();
+}
@@ -0,0 +1,31 @@
+package functions;
+
+// Обычный цикл по аргументам; используется, если векторное ядро недоступно
+final class ScalarInterpolationKernel implements InterpolationKernel {
+    public void values(double[] xs, double[] ys, int count, double[] args, double[] out, int from, int to,
+                       boolean sorted) {
+        double left = xs[0];
+        double right = xs[count - 1];
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            double x = args[i];
+            if (x >= left && x <= right) {
+                segment = Interpolation.advanceSegment(xs, count, sorted ? segment : 0, x);
+                out[i] = Interpolation.interpolate(xs, ys, segment, x);
+            } else {
+                out[i] = Double.NaN;
+            }
+        }
+    }
+
+    public void uniformValues(double origin, double step, int firstIndex, double[] ys, int offset, int count,
+                              double[] args, double[] out, int from, int to) {
+        double left = origin + firstIndex * step;
+        double right = origin + (firstIndex + count - 1) * step;
+        for (int i = from; i < to; i++) {
+            double x = args[i];
+            out[i] = (x >= left && x <= right)
+                    ? Interpolation.interpolateUniform(origin, step, firstIndex, ys, offset, count, x) : Double.NaN;
+        }
+    }
+}
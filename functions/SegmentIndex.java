@@ -0,0 +1,13 @@
+package functions;
+
+// Индекс для поиска отрезка по упорядоченному массиву X. Поля реализаций
+// final и заполняются в конструкторе, поэтому индекс, построенный одним
+// потоком, можно без синхронизации использовать в других
+interface SegmentIndex {
+    // наибольший номер i из [0, count - 2], для которого x[i] < x, или 0;
+    // x внутри области определения
+    int segment(double x);
+
+    // число сравнений с узлами при поиске x, нашедшем отрезок segment (для метрик)
+    int depth(double x, int segment);
+}
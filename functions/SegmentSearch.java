@@ -0,0 +1,36 @@
+package functions;
+
+// Способ поиска отрезка [x[i], x[i + 1]], содержащего аргумент, в
+// ArrayTabulatedFunction. Индекс строится при первом поиске после изменения
+// абсцисс, поэтому EYTZINGER и LEARNED подходят для таблиц, которые читают
+// гораздо чаще, чем меняют X.
+public enum SegmentSearch {
+    // бинарный поиск по массиву X без сравнения с погрешностью на каждом шаге;
+    // дополнительной памяти не требует
+    BINARY,
+    // копия X в порядке обхода дерева в ширину (раскладка Эйтцингера): первые
+    // уровни поиска лежат рядом и остаются в кэше, спуск без ветвлений;
+    // 12 байт на точку. Выигрывает на getFunctionValues, где независимые поиски
+    // перекрываются; одиночный поиск в таблице больше кэша без программной
+    // предвыборки не быстрее BINARY
+    EYTZINGER,
+    // кусочно-линейная модель номера отрезка по X на равномерной сетке узлов
+    // и уточнение предсказания поиском от него; около 1 байта на точку,
+    // быстрее всего на гладко распределенных X
+    LEARNED;
+
+    // до этого числа точек массив X помещается в кэш второго уровня, и бинарный
+    // поиск без ветвлений быстрее
+    static final int BRANCHLESS_LIMIT = 1 << 17;
+
+    SegmentIndex build(double[] xs, int count) {
+        switch (this) {
+            case EYTZINGER:
+                return new EytzingerSegmentIndex(xs, count);
+            case LEARNED:
+                return new LearnedSegmentIndex(xs, count);
+            default:
+                return new BinarySegmentIndex(xs, count, count > BRANCHLESS_LIMIT);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package functions;
+
+// Потоковое упрощение табулированной функции: из точек, поступающих по
+// возрастанию X, остаются узлы, ломаная по которым отличается от исходной
+// не больше чем на maxError (по модулю, во всей области определения - разность
+// двух ломаных линейна между исходными узлами, поэтому достаточно проверять их).
+//
+// От последнего оставленного узла (якоря) каждая следующая точка ограничивает
+// наклон отрезка интервалом, при котором прямая проходит от нее не дальше
+// maxError; пересечение интервалов - конус допустимых наклонов. Концом отрезка
+// может стать точка, наклон на которую лежит в конусе предыдущих точек. Когда
+// конус пуст, дальше отрезок продлить нельзя: последний допустимый конец
+// становится узлом и новым якорем, а точки после него учитываются заново.
+// Отрезки получаются самыми длинными от каждого якоря; это не гарантирует
+// наименьшее возможное число узлов, но работает за один проход и хранит
+// только точки текущего отрезка.
+//
+// Оставленные точки передаются получателю или, если его нет, собираются для
+// toFunction(). Границы исходной функции всегда остаются узлами.
+public class SimplifyingFilter implements DoubleBiConsumer {
+    private final double maxError;
+    private final DoubleBiConsumer downstream;
+
+    // якорь - последний оставленный узел
+    private double anchorX;
+    private double anchorY;
+    private boolean started;
+    private boolean finished;
+
+    // точки после якоря, еще не ставшие узлами
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int count;
+    // конус допустимых наклонов от якоря и последний допустимый конец отрезка
+    private double low = Double.NEGATIVE_INFINITY;
+    private double high = Double.POSITIVE_INFINITY;
+    private int lastValid = -1;
+
+    // оставленные точки, если нет получателя
+    private double[] keptXs;
+    private double[] keptYs;
+    private int kept;
+
+    private long accepted;
+    private long emitted;
+
+    public SimplifyingFilter(double maxError) {
+        this(maxError, null);
+    }
+
+    public SimplifyingFilter(double maxError, DoubleBiConsumer downstream) {
+        if (!(maxError >= 0)) {
+            throw new IllegalArgumentException("Допустимая погрешность должна быть неотрицательной");
+        }
+        this.maxError = maxError;
+        this.downstream = downstream;
+        if (downstream == null) {
+            keptXs = new double[64];
+            keptYs = new double[64];
+        }
+    }
+
+    // упрощенная копия функции
+    public static ArrayTabulatedFunction simplify(TabulatedFunction function, double maxError) {
+        SimplifyingFilter filter = new SimplifyingFilter(maxError);
+        function.forEachPoint(filter);
+        return filter.toFunction();
+    }
+
+    public long getAcceptedPoints() {
+        return accepted;
+    }
+
+    public long getEmittedPoints() {
+        return emitted;
+    }
+
+    public void accept(double x, double y) {
+        if (finished) {
+            throw new IllegalStateException("Фильтр уже завершен");
+        }
+        double last = count > 0 ? xs[count - 1] : anchorX;
+        if (started && !(x - last >= 1e-10)) {
+            throw new IllegalArgumentException("Нарушена упорядоченность точек");
+        }
+        if (!Double.isFinite(y)) {
+            throw new IllegalArgumentException("Y точки не является конечным числом");
+        }
+        accepted++;
+        if (!started) {
+            started = true;
+            emit(x, y);
+            return;
+        }
+
+        if (count == xs.length) {
+            xs = grow(xs, count);
+            ys = grow(ys, count);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+        process(count - 1);
+    }
+
+    // учет точек с номера from; при пустом конусе - новый узел и учет оставшихся заново
+    private void process(int from) {
+        int k = from;
+        while (k < count) {
+            double dx = xs[k] - anchorX;
+            double slope = (ys[k] - anchorY) / dx;
+            if (slope >= low && slope <= high) {
+                lastValid = k;
+            }
+            low = Math.max(low, (ys[k] - maxError - anchorY) / dx);
+            high = Math.min(high, (ys[k] + maxError - anchorY) / dx);
+            if (low > high) {
+                // точка k в конус не помещается, поэтому lastValid < k
+                advance();
+                k = 0;
+            } else {
+                k++;
+            }
+        }
+    }
+
+    // последний допустимый конец становится узлом и якорем
+    private void advance() {
+        int end = lastValid;
+        emit(xs[end], ys[end]);
+        int rest = count - end - 1;
+        System.arraycopy(xs, end + 1, xs, 0, rest);
+        System.arraycopy(ys, end + 1, ys, 0, rest);
+        count = rest;
+        low = Double.NEGATIVE_INFINITY;
+        high = Double.POSITIVE_INFINITY;
+        lastValid = -1;
+    }
+
+    private void emit(double x, double y) {
+        anchorX = x;
+        anchorY = y;
+        emitted++;
+        if (downstream != null) {
+            downstream.accept(x, y);
+            return;
+        }
+        if (kept == keptXs.length) {
+            keptXs = grow(keptXs, kept);
+            keptYs = grow(keptYs, kept);
+        }
+        keptXs[kept] = x;
+        keptYs[kept] = y;
+        kept++;
+    }
+
+    private static double[] grow(double[] array, int length) {
+        double[] larger = new double[length + (length >> 1)];
+        System.arraycopy(array, 0, larger, 0, length);
+        return larger;
+    }
+
+    // завершение потока: последняя точка становится узлом; повторный вызов ничего не делает
+    public void finish() {
+        while (count > 0) {
+            if (lastValid == count - 1) {
+                emit(xs[count - 1], ys[count - 1]);
+                count = 0;
+            } else {
+                advance();
+                process(0);
+            }
+        }
+        finished = true;
+    }
+
+    // функция по оставленным точкам; завершает поток
+    public ArrayTabulatedFunction toFunction() {
+        if (downstream != null) {
+            throw new IllegalStateException("Точки переданы получателю фильтра");
+        }
+        finish();
+        if (kept < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+        double[] functionXs = new double[kept + 10];
+        double[] functionYs = new double[kept + 10];
+        System.arraycopy(keptXs, 0, functionXs, 0, kept);
+        System.arraycopy(keptYs, 0, functionYs, 0, kept);
+        return new ArrayTabulatedFunction(functionXs, functionYs, kept);
+    }
+}
@@ -0,0 +1,44 @@
+package functions;
+
+// Сортировка без java.util: порядок индексов массива по возрастанию ключей
+final class Sorting {
+    private Sorting() {
+    }
+
+    // индексы 0..count-1, упорядоченные по keys (сортировка слиянием, устойчивая);
+    // для уже упорядоченных ключей - один проход
+    static int[] order(double[] keys, int count) {
+        int[] order = new int[count];
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            if (i > 0 && keys[i] < keys[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (sorted) {
+            return order;
+        }
+
+        int[] buffer = new int[count];
+        for (int width = 1; width < count; width <<= 1) {
+            for (int from = 0; from < count; from += width << 1) {
+                int middle = Math.min(from + width, count);
+                int to = Math.min(from + (width << 1), count);
+                int left = from;
+                int right = middle;
+                for (int k = from; k < to; k++) {
+                    if (right >= to || (left < middle && keys[order[left]] <= keys[order[right]])) {
+                        buffer[k] = order[left++];
+                    } else {
+                        buffer[k] = order[right++];
+                    }
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+}
@@ -13,4 +13,10 @@ public interface TabulatedFunction {
     double getLeftDomainBorder();
     double getRightDomainBorder();
     double getFunctionValue(double x);
+    void getFunctionValues(double[] xs, double[] out);
+    TabulatedFunction freeze();
+    void forEachPoint(DoubleBiConsumer action);
+    PointCursor cursor();
+    void copyXs(double[] target);
+    void copyYs(double[] target);
 }
\ No newline at end of file
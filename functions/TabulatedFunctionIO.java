@@ -0,0 +1,394 @@
+package functions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Сохранение и загрузка табулированных функций.
+//
+// Двоичный формат (little-endian):
+//   0  int    сигнатура "TABF"
+//   4  int    версия формата
+//   8  int    флаги: бит 0 - равномерная сетка
+//   12 int    число точек n
+//   16 double origin    \
+//   24 double step       | только для равномерной сетки:
+//   32 long   firstIndex /  X точки i равен origin + (firstIndex + i) * step
+//   64        данные: n ординат для равномерной сетки, иначе n абсцисс, затем n ординат
+// Данные выровнены по 8 байт, поэтому файл можно отображать в память
+// и читать без копирования (MappedTabulatedFunction в каталоге jdk21).
+//
+// Текстовый формат: по точке на строку, X и Y через запятую, точку с запятой,
+// табуляцию или пробелы; пустые строки и строки, начинающиеся с '#', пропускаются.
+public final class TabulatedFunctionIO {
+    static final int MAGIC = 'T' | 'A' << 8 | 'B' << 16 | 'F' << 24;
+    static final int VERSION = 1;
+    static final int FLAG_UNIFORM = 1;
+    static final long HEADER_SIZE = 64;
+
+    private TabulatedFunctionIO() {
+    }
+
+    public static void writeBinary(TabulatedFunction function, Path path) throws IOException {
+        int count = function.getPointsCount();
+
+        // равномерная сетка сохраняется без абсцисс, если X всех точек
+        // в точности восстанавливаются по формуле
+        double origin = function.getPointX(0);
+        double step = (function.getPointX(count - 1) - origin) / (count - 1);
+        long firstIndex = 0;
+        boolean uniform;
+        if (function instanceof UniformTabulatedFunction && ((UniformTabulatedFunction) function).isUniform()) {
+            UniformTabulatedFunction grid = (UniformTabulatedFunction) function;
+            origin = grid.origin();
+            step = grid.step();
+            firstIndex = grid.firstIndex();
+            uniform = true;
+        } else {
+            uniform = true;
+            PointCursor cursor = function.cursor();
+            for (int i = 0; uniform && cursor.next(); i++) {
+                uniform = cursor.getX() == origin + i * step;
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, uniform ? FLAG_UNIFORM : 0);
+        header.putInt(12, count);
+        if (uniform) {
+            header.putDouble(16, origin);
+            header.putDouble(24, step);
+            header.putLong(32, firstIndex);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header, 0);
+
+            // абсциссы и ординаты записываются за один обход точек, каждые
+            // через свой буфер со своей позицией в файле
+            ByteBuffer xs = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer ys = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            long xsPosition = HEADER_SIZE;
+            long ysPosition = uniform ? HEADER_SIZE : HEADER_SIZE + 8L * count;
+            PointCursor cursor = function.cursor();
+            while (cursor.next()) {
+                if (!uniform) {
+                    xs.putDouble(cursor.getX());
+                    if (!xs.hasRemaining()) {
+                        xsPosition = flush(channel, xs, xsPosition);
+                    }
+                }
+                ys.putDouble(cursor.getY());
+                if (!ys.hasRemaining()) {
+                    ysPosition = flush(channel, ys, ysPosition);
+                }
+            }
+            flush(channel, xs, xsPosition);
+            flush(channel, ys, ysPosition);
+            channel.force(false);
+        }
+    }
+
+    // запись заполненной части буфера с позиции position; возвращает следующую позицию
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        long next = position + buffer.remaining();
+        writeFully(channel, buffer, position);
+        buffer.clear();
+        return next;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    public static void writeText(TabulatedFunction function, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeText(function, writer);
+        writer.flush();
+    }
+
+    // Точки читаются курсором без создания FunctionPoint, числа
+    // форматируются в один переиспользуемый StringBuilder и пишутся пачками из char-буфера
+    public static void writeText(TabulatedFunction function, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        char[] buffer = new char[BUFFER_SIZE];
+        int length = 0;
+        PointCursor cursor = function.cursor();
+        while (cursor.next()) {
+            line.setLength(0);
+            line.append(cursor.getX()).append(',').append(cursor.getY()).append('\n');
+            if (length + line.length() > buffer.length) {
+                out.write(buffer, 0, length);
+                length = 0;
+            }
+            line.getChars(0, line.length(), buffer, length);
+            length += line.length();
+        }
+        out.write(buffer, 0, length);
+        out.flush();
+    }
+
+    public static ArrayTabulatedFunction readText(InputStream in)
+            throws IOException, InappropriateFunctionPointException {
+        return readText(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public static ArrayTabulatedFunction readText(ReadableByteChannel channel)
+            throws IOException, InappropriateFunctionPointException {
+        return readText(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    // Чтение точек сразу в массивы функции. Текст разбирается в переиспользуемом
+    // char-буфере собственным разборщиком чисел, порядок X проверяется по ходу
+    // чтения; объекты на точку не создаются.
+    public static ArrayTabulatedFunction readText(Reader in)
+            throws IOException, InappropriateFunctionPointException {
+        TextParser parser = new TextParser(in);
+        double[] xs = new double[1024];
+        double[] ys = new double[1024];
+        int count = 0;
+        while (parser.nextLine()) {
+            double x = parser.nextNumber();
+            double y = parser.nextNumber();
+            parser.endLine();
+            if (count > 0 && !(x - xs[count - 1] >= 1e-10)) {
+                throw new InappropriateFunctionPointException("Строка " + parser.line()
+                        + ": X должен быть больше X предыдущей точки");
+            }
+            if (count == xs.length) {
+                double[] newXs = new double[count + (count >> 1)];
+                double[] newYs = new double[newXs.length];
+                System.arraycopy(xs, 0, newXs, 0, count);
+                System.arraycopy(ys, 0, newYs, 0, count);
+                xs = newXs;
+                ys = newYs;
+            }
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+        if (count < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+        return new ArrayTabulatedFunction(xs, ys, count);
+    }
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    // Разбор строк из char-буфера: строка целиком находится в буфере,
+    // недочитанный хвост переносится в начало перед следующим чтением
+    private static final class TextParser {
+        private final Reader in;
+        private char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private int lineEnd;
+        private int nextLineStart;
+        private int line;
+        private boolean eof;
+
+        TextParser(Reader in) {
+            this.in = in;
+        }
+
+        int line() {
+            return line;
+        }
+
+        // переход к следующей непустой строке; false - конец текста
+        boolean nextLine() throws IOException {
+            while (true) {
+                position = nextLineStart;
+                int end = findLineEnd();
+                if (end < 0) {
+                    return false;
+                }
+                line++;
+                lineEnd = end;
+                nextLineStart = Math.min(end + 1, limit);
+                skipSpaces();
+                if (position < lineEnd && buffer[position] != '#') {
+                    return true;
+                }
+            }
+        }
+
+        // конец строки, начинающейся с position; при дочитывании буфер сдвигается
+        // так, что строка начинается с нуля
+        private int findLineEnd() throws IOException {
+            int scan = position;
+            while (true) {
+                for (; scan < limit; scan++) {
+                    if (buffer[scan] == '\n') {
+                        return scan;
+                    }
+                }
+                if (eof) {
+                    return position < limit ? limit : -1;
+                }
+                scan -= position;
+                fill();
+            }
+        }
+
+        private void fill() throws IOException {
+            int remaining = limit - position;
+            if (remaining == buffer.length) {
+                char[] larger = new char[buffer.length * 2];
+                System.arraycopy(buffer, position, larger, 0, remaining);
+                buffer = larger;
+            } else {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            }
+            position = 0;
+            limit = remaining;
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+
+        private void skipSpaces() {
+            while (position < lineEnd && (buffer[position] == ' ' || buffer[position] == '\t'
+                    || buffer[position] == '\r')) {
+                position++;
+            }
+        }
+
+        private void skipSeparator() {
+            skipSpaces();
+            if (position < lineEnd && (buffer[position] == ',' || buffer[position] == ';')) {
+                position++;
+                skipSpaces();
+            }
+        }
+
+        void endLine() throws IOException {
+            skipSpaces();
+            if (position != lineEnd) {
+                throw new IOException("Строка " + line + ": лишние символы после координат");
+            }
+        }
+
+        double nextNumber() throws IOException {
+            skipSeparator();
+            int start = position;
+            while (position < lineEnd && buffer[position] != ',' && buffer[position] != ';'
+                    && buffer[position] != ' ' && buffer[position] != '\t' && buffer[position] != '\r') {
+                position++;
+            }
+            if (start == position) {
+                throw new IOException("Строка " + line + ": ожидалось число");
+            }
+            try {
+                return DoubleParser.parse(buffer, start, position);
+            } catch (NumberFormatException e) {
+                throw new IOException("Строка " + line + ": некорректное число "
+                        + new String(buffer, start, position - start));
+            }
+        }
+    }
+
+    // загрузка файла в кучу: изменяемая копия (равномерная сетка - UniformTabulatedFunction)
+    public static TabulatedFunction readBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Файл не содержит табулированную функцию");
+            }
+            ByteBuffer header = ByteBuffer.allocate((int) HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Файл не содержит табулированную функцию");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Неподдерживаемая версия формата: " + header.getInt(4));
+            }
+            boolean uniform = (header.getInt(8) & FLAG_UNIFORM) != 0;
+            int count = header.getInt(12);
+            long ysOffset = uniform ? HEADER_SIZE : HEADER_SIZE + 8L * count;
+            if (count < 2 || size != ysOffset + 8L * count) {
+                throw new IOException("Размер файла не соответствует числу точек " + count);
+            }
+
+            if (uniform) {
+                checkGrid(header.getDouble(16), header.getDouble(24), header.getLong(32), count);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            double[] ys = readDoubles(channel, buffer, ysOffset, count, false);
+            if (uniform) {
+                // номер первой точки проверен checkGrid
+                return new UniformTabulatedFunction(header.getDouble(16), header.getDouble(24),
+                        (int) header.getLong(32), ys);
+            }
+            return new ArrayTabulatedFunction(readDoubles(channel, buffer, HEADER_SIZE, count, true), ys, count);
+        }
+    }
+
+    // Проверка заголовка равномерной сетки: номера точек firstIndex + i
+    // должны помещаться в int, шаг - быть положительным числом
+    static void checkGrid(double origin, double step, long firstIndex, int count) throws IOException {
+        if (!Double.isFinite(origin) || !(step > 0) || !Double.isFinite(step)) {
+            throw new IOException("Некорректная равномерная сетка: origin " + origin + ", step " + step);
+        }
+        if (firstIndex < Integer.MIN_VALUE || firstIndex > Integer.MAX_VALUE - count) {
+            throw new IOException("Номер первой точки сетки вне допустимого диапазона: " + firstIndex);
+        }
+    }
+
+    // count чисел с позиции position через буфер; ordered - числа должны
+    // возрастать, как X точек
+    private static double[] readDoubles(FileChannel channel, ByteBuffer buffer, long position, int count,
+                                        boolean ordered) throws IOException {
+        double[] values = new double[count];
+        for (int done = 0; done < count; ) {
+            int length = Math.min(count - done, BUFFER_SIZE / 8);
+            buffer.clear().limit(8 * length);
+            readFully(channel, buffer, position);
+            buffer.flip();
+            buffer.asDoubleBuffer().get(values, done, length);
+            if (ordered) {
+                // отрицание сравнения отсекает и NaN
+                for (int i = Math.max(done, 1); i < done + length; i++) {
+                    if (!(values[i] - values[i - 1] >= 1e-10)) {
+                        throw new IOException("Нарушена упорядоченность точек: точка " + i);
+                    }
+                }
+            }
+            position += 8L * length;
+            done += length;
+        }
+        return values;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Неожиданный конец файла");
+            }
+            position += read;
+        }
+    }
+}
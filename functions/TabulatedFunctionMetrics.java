@@ -0,0 +1,189 @@
+package functions;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Счетчики использования табулированной функции, которые заполняет
+// InstrumentedTabulatedFunction. Все счетчики - LongAdder: потоки увеличивают
+// свои ячейки без общей кэш-линии, сумма собирается только при чтении.
+// Длительность отдельных вычислений замеряется у каждого SAMPLE_MASK + 1-го
+// вызова, так как пара System.nanoTime() дороже самой интерполяции.
+public final class TabulatedFunctionMetrics implements TabulatedFunctionMetricsMBean {
+    static final int SAMPLE_MASK = 63;
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder outOfDomain = new LongAdder();
+    private final LongAdder bulkEvaluations = new LongAdder();
+    private final LongAdder bulkArguments = new LongAdder();
+    private final LongAdder mutations = new LongAdder();
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder deletions = new LongAdder();
+    private final LongAdder resizes = new LongAdder();
+    private final LongAdder copiedPoints = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchDepth = new LongAdder();
+    private final LatencyHistogram evaluationLatency = new LatencyHistogram();
+    private final LatencyHistogram bulkLatency = new LatencyHistogram();
+
+    private volatile ObjectName registeredName;
+
+    void evaluated(double y) {
+        evaluations.increment();
+        // NaN возвращается для аргумента вне области определения
+        if (y != y) {
+            outOfDomain.increment();
+        }
+    }
+
+    void evaluationTimed(long nanos) {
+        evaluationLatency.record(nanos);
+    }
+
+    void bulkEvaluated(double[] out, int from, int to, long nanos) {
+        bulkEvaluations.increment();
+        bulkArguments.add(to - from);
+        int nans = 0;
+        for (int i = from; i < to; i++) {
+            if (out[i] != out[i]) {
+                nans++;
+            }
+        }
+        outOfDomain.add(nans);
+        bulkLatency.record(nanos);
+    }
+
+    void mutated() {
+        mutations.increment();
+    }
+
+    void inserted() {
+        mutations.increment();
+        insertions.increment();
+    }
+
+    void deleted() {
+        mutations.increment();
+        deletions.increment();
+    }
+
+    // события ArrayTabulatedFunction: перенос массивов в новые и сдвиг точек
+    void resized(int oldCapacity, int newCapacity, int points) {
+        resizes.increment();
+        copiedPoints.add(points);
+        FunctionEvents.Resize event = new FunctionEvents.Resize();
+        if (event.shouldCommit()) {
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = newCapacity;
+            event.points = points;
+            event.commit();
+        }
+    }
+
+    void copied(int points) {
+        copiedPoints.add(points);
+    }
+
+    void searched(int depth) {
+        searches.increment();
+        searchDepth.add(depth);
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getOutOfDomainEvaluations() {
+        return outOfDomain.sum();
+    }
+
+    public long getBulkEvaluations() {
+        return bulkEvaluations.sum();
+    }
+
+    public long getBulkArguments() {
+        return bulkArguments.sum();
+    }
+
+    public long getMutations() {
+        return mutations.sum();
+    }
+
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    public long getDeletions() {
+        return deletions.sum();
+    }
+
+    public long getResizes() {
+        return resizes.sum();
+    }
+
+    public long getCopiedPoints() {
+        return copiedPoints.sum();
+    }
+
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    public double getAverageSearchDepth() {
+        long count = searches.sum();
+        return count == 0 ? 0 : (double) searchDepth.sum() / count;
+    }
+
+    public long getSampledEvaluations() {
+        return evaluationLatency.count();
+    }
+
+    public double getEvaluationLatencyMeanNanos() {
+        return evaluationLatency.meanNanos();
+    }
+
+    public long getEvaluationLatencyP50Nanos() {
+        return evaluationLatency.percentileNanos(0.5);
+    }
+
+    public long getEvaluationLatencyP99Nanos() {
+        return evaluationLatency.percentileNanos(0.99);
+    }
+
+    public double getBulkLatencyMeanNanos() {
+        return bulkLatency.meanNanos();
+    }
+
+    public long getBulkLatencyP99Nanos() {
+        return bulkLatency.percentileNanos(0.99);
+    }
+
+    // обнуление идет по счетчикам, одновременные обновления могут попасть в старые значения
+    public void reset() {
+        LongAdder[] counters = {evaluations, outOfDomain, bulkEvaluations, bulkArguments, mutations,
+                insertions, deletions, resizes, copiedPoints, searches, searchDepth};
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        evaluationLatency.reset();
+        bulkLatency.reset();
+    }
+
+    // регистрация в платформенном MBeanServer под именем
+    // functions:type=TabulatedFunction,name=<name>
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("functions:type=TabulatedFunction,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+        return objectName;
+    }
+
+    public void unregister() throws JMException {
+        ObjectName objectName = registeredName;
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            registeredName = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package functions;
+
+// Атрибуты и операции TabulatedFunctionMetrics, видимые через JMX
+public interface TabulatedFunctionMetricsMBean {
+    long getEvaluations();
+    long getOutOfDomainEvaluations();
+    long getBulkEvaluations();
+    long getBulkArguments();
+
+    long getMutations();
+    long getInsertions();
+    long getDeletions();
+    long getResizes();
+    long getCopiedPoints();
+
+    long getSearches();
+    double getAverageSearchDepth();
+
+    long getSampledEvaluations();
+    double getEvaluationLatencyMeanNanos();
+    long getEvaluationLatencyP50Nanos();
+    long getEvaluationLatencyP99Nanos();
+    double getBulkLatencyMeanNanos();
+    long getBulkLatencyP99Nanos();
+
+    void reset();
+}
@@ -0,0 +1,389 @@
+package functions;
+
+public class UniformTabulatedFunction implements TabulatedFunction, BulkEvaluation {
+    // X точки с номером i равен origin + (firstIndex + i) * step; смещение
+    // firstIndex позволяет удалять и добавлять крайние точки, не меняя
+    // вычисленные значения X остальных точек
+    private double origin;
+    private double step;
+    private int firstIndex;
+    private double[] ys;
+    // номер элемента ys с ординатой точки 0: удаление первой точки сдвигает
+    // начало, не копируя массив
+    private int start;
+    private int pointsCount;
+    // функция с произвольной сеткой, на которую происходит переключение,
+    // как только сетка перестает быть равномерной
+    private ArrayTabulatedFunction irregular;
+
+    public UniformTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+
+        this.origin = leftX;
+        this.step = (rightX - leftX) / (pointsCount - 1);
+        this.pointsCount = pointsCount;
+        this.ys = new double[pointsCount];
+    }
+
+    public UniformTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+
+        this.origin = leftX;
+        this.step = (rightX - leftX) / (values.length - 1);
+        this.pointsCount = values.length;
+        this.ys = new double[pointsCount];
+        System.arraycopy(values, 0, ys, 0, pointsCount);
+    }
+
+    // сетка из сохраненного файла; массив не копируется, номера
+    // firstIndex + i проверены вызывающим
+    UniformTabulatedFunction(double origin, double step, int firstIndex, double[] ys) {
+        this.origin = origin;
+        this.step = step;
+        this.firstIndex = firstIndex;
+        this.ys = ys;
+        this.pointsCount = ys.length;
+    }
+
+    double origin() {
+        return origin;
+    }
+
+    double step() {
+        return step;
+    }
+
+    int firstIndex() {
+        return firstIndex;
+    }
+
+    // массив ординат для ParallelTabulation, в том числе после перехода
+    // к неравномерной сетке; значимы первые pointsCount элементов, поэтому
+    // сдвинутое начало переносится в ноль
+    double[] ys() {
+        if (irregular != null) {
+            return irregular.ys();
+        }
+        compact();
+        return ys;
+    }
+
+    private void compact() {
+        if (start > 0) {
+            System.arraycopy(ys, start, ys, 0, pointsCount);
+            start = 0;
+        }
+    }
+
+    // true, пока сетка равномерная
+    public boolean isUniform() {
+        return irregular == null;
+    }
+
+    private double x(int index) {
+        return origin + (firstIndex + index) * step;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+    }
+
+    // переход к хранению произвольной сетки
+    private void makeIrregular() {
+        compact();
+        double[] xs = new double[ys.length];
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = x(i);
+        }
+        irregular = new ArrayTabulatedFunction(xs, ys, pointsCount);
+        ys = null;
+    }
+
+    public double getLeftDomainBorder() {
+        if (irregular != null) {
+            return irregular.getLeftDomainBorder();
+        }
+        return x(0);
+    }
+
+    public double getRightDomainBorder() {
+        if (irregular != null) {
+            return irregular.getRightDomainBorder();
+        }
+        return x(pointsCount - 1);
+    }
+
+    public double getFunctionValue(double x) {
+        if (irregular != null) {
+            return irregular.getFunctionValue(x);
+        }
+        if (!(x >= x(0) && x <= x(pointsCount - 1))) {
+            return Double.NaN;
+        }
+        return interpolate(x);
+    }
+
+    // номер отрезка вычисляется по X напрямую, без поиска
+    private double interpolate(double x) {
+        return Interpolation.interpolateUniform(origin, step, firstIndex, ys, start, pointsCount, x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // значения для части аргументов xs[from, to)
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        if (irregular != null) {
+            irregular.getFunctionValues(xs, out, from, to);
+            return;
+        }
+        Interpolation.checkRange(xs, out, from, to);
+        Interpolation.uniformValues(origin, step, firstIndex, ys, start, pointsCount, xs, out, from, to);
+    }
+
+    public int getPointsCount() {
+        if (irregular != null) {
+            return irregular.getPointsCount();
+        }
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        if (irregular != null) {
+            return irregular.getPoint(index);
+        }
+        checkIndex(index);
+        return new FunctionPoint(x(index), ys[start + index]);
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        if (irregular == null) {
+            checkIndex(index);
+            checkOrder(index, point.getX());
+            if (point.getX() == x(index)) {
+                ys[start + index] = point.getY();
+                return;
+            }
+            makeIrregular();
+        }
+        irregular.setPoint(index, point);
+    }
+
+    public double getPointX(int index) {
+        if (irregular != null) {
+            return irregular.getPointX(index);
+        }
+        checkIndex(index);
+        return x(index);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        if (irregular == null) {
+            checkIndex(index);
+            checkOrder(index, x);
+            if (x == x(index)) {
+                return;
+            }
+            makeIrregular();
+        }
+        irregular.setPointX(index, x);
+    }
+
+    // проверка до переключения, чтобы неудачное изменение не меняло хранение
+    private void checkOrder(int index, double x) throws InappropriateFunctionPointException {
+        if ((index > 0 && x <= x(index - 1)) ||
+                (index < pointsCount - 1 && x >= x(index + 1))) {
+            throw new InappropriateFunctionPointException("Нарушена упорядоченность точек");
+        }
+    }
+
+    public double getPointY(int index) {
+        if (irregular != null) {
+            return irregular.getPointY(index);
+        }
+        checkIndex(index);
+        return ys[start + index];
+    }
+
+    public void setPointY(int index, double y) {
+        if (irregular != null) {
+            irregular.setPointY(index, y);
+            return;
+        }
+        checkIndex(index);
+        ys[start + index] = y;
+    }
+
+    public void deletePoint(int index) {
+        if (irregular != null) {
+            irregular.deletePoint(index);
+            return;
+        }
+        checkIndex(index);
+        if (pointsCount < 3) {
+            throw new IllegalStateException("Нельзя удалить точку: меньше 3 точек");
+        }
+
+        if (index == 0) {
+            // сетка остается равномерной, сдвигается только начало
+            start++;
+            firstIndex++;
+            pointsCount--;
+        } else if (index == pointsCount - 1) {
+            pointsCount--;
+        } else {
+            makeIrregular();
+            irregular.deletePoint(index);
+        }
+    }
+
+    public TabulatedFunction freeze() {
+        if (irregular != null) {
+            return irregular.freeze();
+        }
+        double[] xs = new double[pointsCount];
+        double[] frozenYs = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = x(i);
+        }
+        System.arraycopy(ys, start, frozenYs, 0, pointsCount);
+        return new FrozenTabulatedFunction(xs, frozenYs);
+    }
+
+    // обход точек без создания FunctionPoint; X вычисляются по формуле сетки
+    public void forEachPoint(DoubleBiConsumer action) {
+        if (irregular != null) {
+            irregular.forEachPoint(action);
+            return;
+        }
+        for (int i = 0; i < pointsCount; i++) {
+            action.accept(x(i), ys[start + i]);
+        }
+    }
+
+    public PointCursor cursor() {
+        if (irregular != null) {
+            return irregular.cursor();
+        }
+        return new GridCursor();
+    }
+
+    public void copyXs(double[] target) {
+        if (irregular != null) {
+            irregular.copyXs(target);
+            return;
+        }
+        checkTarget(target);
+        for (int i = 0; i < pointsCount; i++) {
+            target[i] = x(i);
+        }
+    }
+
+    public void copyYs(double[] target) {
+        if (irregular != null) {
+            irregular.copyYs(target);
+            return;
+        }
+        checkTarget(target);
+        System.arraycopy(ys, start, target, 0, pointsCount);
+    }
+
+    private void checkTarget(double[] target) {
+        if (target.length < pointsCount) {
+            throw new IllegalArgumentException("Массив короче числа точек");
+        }
+    }
+
+    private final class GridCursor implements PointCursor {
+        private int index = -1;
+
+        public boolean next() {
+            if (index + 1 >= pointsCount) {
+                index = pointsCount;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public double getX() {
+            checkPosition();
+            return x(index);
+        }
+
+        public double getY() {
+            checkPosition();
+            return ys[start + index];
+        }
+
+        private void checkPosition() {
+            if (index < 0 || index >= pointsCount) {
+                throw new IllegalStateException("Курсор не указывает на точку");
+            }
+        }
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        if (irregular != null) {
+            irregular.addPoint(point);
+            return;
+        }
+
+        // ближайшие к точке узлы сетки - соседи отрезка, в который она попадает
+        double x = point.getX();
+        if (Double.isNaN(x)) {
+            throw new InappropriateFunctionPointException("X точки не является числом");
+        }
+        int nearest = (int) Math.rint((x - x(0)) / step);
+        for (int i = nearest - 1; i <= nearest + 1; i++) {
+            if (i >= 0 && i < pointsCount && Math.abs(x(i) - x) < 1e-10) {
+                throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+            }
+        }
+
+        if (x == x(pointsCount)) {
+            // продолжение сетки вправо
+            ensureCapacity(pointsCount + 1);
+            ys[start + pointsCount] = point.getY();
+            pointsCount++;
+        } else if (x == x(-1)) {
+            // продолжение сетки влево: в место, освобожденное удалением первой точки,
+            // иначе со сдвигом
+            if (start == 0) {
+                ensureCapacity(pointsCount + 1);
+                System.arraycopy(ys, 0, ys, 1, pointsCount);
+            } else {
+                start--;
+            }
+            ys[start] = point.getY();
+            firstIndex--;
+            pointsCount++;
+        } else {
+            makeIrregular();
+            irregular.addPoint(point);
+        }
+    }
+
+    // место под capacity точек от начала; при расширении начало переносится в ноль
+    private void ensureCapacity(int capacity) {
+        if (start + capacity > ys.length) {
+            double[] newYs = new double[Math.max(capacity, ys.length + (ys.length >> 1))];
+            System.arraycopy(ys, start, newYs, 0, pointsCount);
+            ys = newYs;
+            start = 0;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package benchmarks;
+
+import functions.*;
+
+import java.util.SplittableRandom;
+
+// Нагрузка на общую таблицу из множества виртуальных потоков: каждый поток в
+// цикле запрашивает значение в случайной точке и ждет ответа. direct -
+// getFunctionValue у ArrayTabulatedFunction, concurrent - у
+// ConcurrentTabulatedFunction, service/<мкс> - через EvaluationService с
+// бюджетом задержки в микросекундах. Печатаются запросы в секунду, средний
+// размер пачки и задержки одного запроса (p50, p99, max).
+// Аргументы: [число точек] [числа потоков через запятую] [бюджеты в мкс через запятую]
+//   java -cp out benchmarks.EvaluationServiceBenchmark 1000000 1,64,1024,10000 0,50,200
+// Прогрев 0.5 с, замер 3 с на каждую строку.
+public class EvaluationServiceBenchmark {
+    private static final int WARMUP = 0;
+    private static final int MEASURE = 1;
+    private static final int STOP = 2;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 3000;
+
+    private static volatile int phase;
+    // результаты вычислений поглощаются, чтобы JIT их не выбросил
+    private static volatile double sink;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[] threads = parse(args.length > 1 ? args[1] : "1,64,1024,10000");
+        int[] budgets = parse(args.length > 2 ? args[2] : "0,50,200");
+
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.sin(i * 0.001);
+        }
+        ArrayTabulatedFunction array = new ArrayTabulatedFunction(0, 1, values);
+        ConcurrentTabulatedFunction concurrent = new ConcurrentTabulatedFunction(0, 1, values);
+        System.out.printf("%-20s %8s %14s %10s %12s %12s %12s%n",
+                "implementation", "threads", "requests/s", "batch", "p50 us", "p99 us", "max us");
+        for (int count : threads) {
+            measure("direct", count, x -> array.getFunctionValue(x), null);
+            measure("concurrent", count, x -> concurrent.getFunctionValue(x), null);
+            for (int budget : budgets) {
+                try (EvaluationService service = new EvaluationService(array, budget * 1000L, 1024)) {
+                    measure("service/" + budget, count, x -> service.evaluate(x).join(), service);
+                }
+            }
+        }
+    }
+
+    // числа из строки вида "1,64,1024"
+    private static int[] parse(String list) {
+        String[] parts = list.split(",");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i].trim());
+        }
+        return numbers;
+    }
+
+    interface Request {
+        double call(double x);
+    }
+
+    private static void measure(String name, int threads, Request request, EvaluationService service)
+            throws Exception {
+        Histogram[] histograms = new Histogram[threads];
+        Thread[] clients = new Thread[threads];
+        phase = WARMUP;
+        for (int t = 0; t < threads; t++) {
+            Histogram histogram = histograms[t] = new Histogram();
+            long seed = t + 1;
+            clients[t] = Thread.ofVirtual().start(() -> load(request, histogram, seed));
+        }
+
+        Thread.sleep(WARMUP_MILLIS);
+        long batches = service != null ? service.getBatches() : 0;
+        long requests = service != null ? service.getRequests() : 0;
+        long start = System.nanoTime();
+        phase = MEASURE;
+        Thread.sleep(MEASURE_MILLIS);
+        phase = STOP;
+        long elapsed = System.nanoTime() - start;
+
+        Histogram total = new Histogram();
+        for (int t = 0; t < threads; t++) {
+            clients[t].join();
+            total.add(histograms[t]);
+        }
+        String batch = "-";
+        if (service != null) {
+            batch = String.format("%.1f", (double) (service.getRequests() - requests)
+                    / Math.max(1, service.getBatches() - batches));
+        }
+        System.out.printf("%-20s %8d %14.0f %10s %12.2f %12.2f %12.2f%n",
+                name, threads, total.count * 1e9 / elapsed, batch,
+                total.percentile(0.5) / 1e3, total.percentile(0.99) / 1e3, total.max / 1e3);
+    }
+
+    // задержки считаются только в фазе замера
+    private static void load(Request request, Histogram histogram, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double acc = 0;
+        int current;
+        while ((current = phase) != STOP) {
+            double x = random.nextDouble();
+            long start = System.nanoTime();
+            acc += request.call(x);
+            if (current == MEASURE) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+        sink = acc;
+    }
+
+    // Логарифмически-линейная гистограмма задержек в наносекундах: степень
+    // двойки делится на 16 корзин, погрешность процентиля - до 1/16.
+    static final class Histogram {
+        private static final int SUB = 16;
+        private final long[] buckets = new long[64 * SUB];
+        long count;
+        long max;
+
+        void record(long nanos) {
+            buckets[bucket(Math.max(nanos, 0))]++;
+            count++;
+            max = Math.max(max, nanos);
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        // значения меньше SUB - в своих корзинах, дальше по 16 корзин на степень
+        private static int bucket(long value) {
+            if (value < SUB) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - 4)) & (SUB - 1);
+            return (exponent - 3) * SUB + sub;
+        }
+
+        // верхняя граница корзины
+        private static long upper(int bucket) {
+            if (bucket < SUB) {
+                return bucket;
+            }
+            int exponent = bucket / SUB + 3;
+            long sub = bucket % SUB;
+            return ((SUB + sub + 1) << (exponent - 4)) - 1;
+        }
+
+        double percentile(double p) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(upper(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import functions.*;
+
+import java.lang.foreign.Arena;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+// Паузы сборщика мусора при большом объеме табличных данных в процессе. Одна
+// реализация на запуск, чтобы кучи не смешивались: строится набор таблиц с заданным объемом
+// точек (16 байт на точку), затем идет нагрузка - вычисления в случайной
+// таблице по упорядоченной пачке аргументов (массивы запроса - короткоживущий
+// мусор) и в каждой 16-й операции addPoint и deletePoint (размер таблиц не
+// меняется). Печатаются: занятая куча после полной сборки, время полной
+// сборки (System.gc()), объем мусора за время нагрузки и паузы сборок -
+// число, сумма и наибольшая. Медленная реализация выделяет меньше мусора и
+// реже вызывает сборки, поэтому паузы сравниваются по наибольшей и средней.
+// Сборщик и размер кучи задаются параметрами JVM. Прогрев 0.5 с, замер 3 с.
+// Аргументы: [объем точек в МБ] [точек в таблице] [реализация]
+//   for name in array list offheap; do
+//     java --enable-preview -Xmx8g -cp out benchmarks.GcPauseBenchmark 1024 65536 $name
+//   done
+public class GcPauseBenchmark {
+    static final int BATCH = 64;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 3000;
+
+    private static final String HEADER = "%-28s %8s %10s %10s %10s %8s %10s %10s %10s%n";
+    private static final String ROW = "%-28s %8d %10d %10.1f %10d %8d %10d %10d %10.1f%n";
+
+    // результаты вычислений поглощаются, чтобы JIT их не выбросил
+    private static volatile double sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int dataMb = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 65536;
+        String name = args.length > 2 ? args[2] : "array";
+
+        StringBuilder collectors = new StringBuilder();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.append(collectors.length() == 0 ? "" : ", ").append(gc.getName());
+        }
+        System.out.println("collectors: " + collectors + ", max heap "
+                + (Runtime.getRuntime().maxMemory() >> 20) + " MB");
+        System.out.printf(HEADER, "implementation", "data MB", "heap MB",
+                "full gc ms", "alloc MB", "pauses", "pause ms", "max ms", "ops/ms");
+
+        int count = (int) Math.max(1, ((long) dataMb << 20) / (16L * size));
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.sin(i * 0.001);
+        }
+        // таблицы вне кучи живут в одной арене и освобождаются вместе с ней
+        try (Arena arena = Arena.ofShared()) {
+            TabulatedFunction[] tables = new TabulatedFunction[count];
+            for (int i = 0; i < count; i++) {
+                tables[i] = create(name, arena, values);
+            }
+            measure(tables[0].getClass().getSimpleName(), tables, (16L * size * count) >> 20);
+        }
+    }
+
+    private static TabulatedFunction create(String name, Arena arena, double[] values) {
+        switch (name) {
+            case "array":
+                return new ArrayTabulatedFunction(0, values.length - 1, values);
+            case "list":
+                return new LinkedListTabulatedFunction(0, values.length - 1, values);
+            case "offheap":
+                return new OffHeapTabulatedFunction(arena, 0, values.length - 1, values);
+            default:
+                throw new IllegalArgumentException("Неизвестная реализация: " + name);
+        }
+    }
+
+    private static void measure(String implementation, TabulatedFunction[] tables, long dataMb) throws Exception {
+        double fullGcMillis = 0;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            fullGcMillis += (System.nanoTime() - start) / 3e6;
+        }
+        long heapMb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+
+        SplittableRandom random = new SplittableRandom(42);
+        load(tables, random, WARMUP_MILLIS);
+
+        PauseRecorder pauses = new PauseRecorder();
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long ops = load(tables, random, MEASURE_MILLIS);
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+        pauses.stop();
+
+        System.out.printf(ROW, implementation, dataMb, heapMb, fullGcMillis, allocated >> 20, pauses.count,
+                pauses.totalMillis, pauses.maxMillis,
+                (double) ops / MEASURE_MILLIS);
+    }
+
+    // нагрузка заданной длительности; результат - число операций
+    private static long load(TabulatedFunction[] tables, SplittableRandom random, long millis)
+            throws InappropriateFunctionPointException {
+        long end = System.nanoTime() + millis * 1_000_000L;
+        long ops = 0;
+        double acc = 0;
+        while (System.nanoTime() < end) {
+            for (int k = 0; k < 256; k++, ops++) {
+                TabulatedFunction f = tables[random.nextInt(tables.length)];
+                double left = f.getLeftDomainBorder();
+                double width = f.getRightDomainBorder() - left;
+
+                // массивы запроса умирают сразу, как в обработке обычного вызова;
+                // по одному случайному аргументу в каждой из BATCH равных частей
+                double[] xs = new double[BATCH];
+                double[] out = new double[BATCH];
+                for (int i = 0; i < BATCH; i++) {
+                    xs[i] = left + (i + random.nextDouble()) / BATCH * width;
+                }
+                f.getFunctionValues(xs, out);
+                acc += out[BATCH - 1];
+
+                if ((ops & 15) == 0) {
+                    double x = left + random.nextDouble() * width;
+                    try {
+                        f.addPoint(new FunctionPoint(x, x));
+                    } catch (InappropriateFunctionPointException e) {
+                        continue;
+                    }
+                    f.deletePoint(1 + random.nextInt(f.getPointsCount() - 2));
+                }
+            }
+        }
+        sink = acc;
+        return ops;
+    }
+
+    // паузы сборок по уведомлениям GarbageCollectorMXBean; фоновые циклы
+    // (G1 Concurrent GC, ZGC Cycles) паузами не считаются
+    private static final class PauseRecorder implements NotificationListener {
+        int count;
+        long totalMillis;
+        long maxMillis;
+
+        PauseRecorder() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+
+        public synchronized void handleNotification(Notification notification, Object handback) {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (info.getGcName().contains("Concurrent") || info.getGcName().endsWith("Cycles")) {
+                return;
+            }
+            long duration = info.getGcInfo().getDuration();
+            count++;
+            totalMillis += duration;
+            maxMillis = Math.max(maxMillis, duration);
+        }
+
+        // уведомления приходят из отдельного потока, последние ждут до 100 мс
+        synchronized void stop() throws Exception {
+            wait(100);
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) gc).removeNotificationListener(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package functions;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Табулированная функция, вычисляемая прямо по отображенному в память файлу
+// формата TabulatedFunctionIO: открытие не читает точки, страницы подгружаются
+// по мере обращения и разделяются через кэш ОС между процессами. Функция
+// неизменяема; после close() обращения к ней выбрасывают IllegalStateException,
+// поэтому freeze() возвращает копию точек в куче.
+public class MappedTabulatedFunction implements TabulatedFunction, BulkEvaluation, AutoCloseable {
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final int pointsCount;
+    private final boolean uniform;
+    private final double origin;
+    private final double step;
+    private final long firstIndex;
+    // абсциссы (пусто для равномерной сетки) и ординаты внутри файла
+    private final MemorySegment xs;
+    private final MemorySegment ys;
+
+    private MappedTabulatedFunction(Arena arena, MemorySegment file) throws IOException {
+        this.arena = arena;
+        if (file.byteSize() < TabulatedFunctionIO.HEADER_SIZE
+                || file.get(INT, 0) != TabulatedFunctionIO.MAGIC) {
+            throw new IOException("Файл не содержит табулированную функцию");
+        }
+        if (file.get(INT, 4) != TabulatedFunctionIO.VERSION) {
+            throw new IOException("Неподдерживаемая версия формата: " + file.get(INT, 4));
+        }
+
+        uniform = (file.get(INT, 8) & TabulatedFunctionIO.FLAG_UNIFORM) != 0;
+        pointsCount = file.get(INT, 12);
+        origin = file.get(DOUBLE, 16);
+        step = file.get(DOUBLE, 24);
+        firstIndex = file.get(LONG, 32);
+        long xsOffset = TabulatedFunctionIO.HEADER_SIZE;
+        long ysOffset = uniform ? xsOffset : xsOffset + 8L * pointsCount;
+
+        if (pointsCount < 2 || file.byteSize() != ysOffset + 8L * pointsCount) {
+            throw new IOException("Размер файла не соответствует числу точек " + pointsCount);
+        }
+        // порядок абсцисс не проверяется: открытие не читает точки
+        if (uniform) {
+            TabulatedFunctionIO.checkGrid(origin, step, firstIndex, pointsCount);
+        }
+        xs = file.asSlice(xsOffset, ysOffset - xsOffset);
+        ys = file.asSlice(ysOffset);
+    }
+
+    public static MappedTabulatedFunction open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // отображение остается действительным и после закрытия канала
+            return new MappedTabulatedFunction(arena,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public void close() {
+        arena.close();
+    }
+
+    private double x(int index) {
+        if (uniform) {
+            return origin + (firstIndex + index) * step;
+        }
+        return xs.getAtIndex(DOUBLE, index);
+    }
+
+    private double y(int index) {
+        return ys.getAtIndex(DOUBLE, index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public double getLeftDomainBorder() {
+        return x(0);
+    }
+
+    public double getRightDomainBorder() {
+        return x(pointsCount - 1);
+    }
+
+    public double getFunctionValue(double x) {
+        if (!(x >= x(0) && x <= x(pointsCount - 1))) {
+            return Double.NaN;
+        }
+        return interpolate(segment(x), x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // значения для части аргументов xs[from, to)
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        Interpolation.checkRange(xs, out, from, to);
+
+        boolean sorted = true;
+        for (int i = from + 1; i < to && sorted; i++) {
+            sorted = xs[i] >= xs[i - 1];
+        }
+        double left = x(0);
+        double right = x(pointsCount - 1);
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            if (!(x >= left && x <= right)) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            // по упорядоченным аргументам поиск продолжается с предыдущего отрезка
+            segment = uniform || !sorted
+                    ? segment(x)
+                    : SegmentInterpolation.advanceSegment(this.xs, DOUBLE, pointsCount, segment, x);
+            out[i] = interpolate(segment, x);
+        }
+    }
+
+    // номер отрезка [x(i), x(i + 1)], содержащего x из области определения
+    private int segment(double x) {
+        if (uniform) {
+            int index = (int) Math.min((x - x(0)) / step, pointsCount - 2);
+            if (index > 0 && x < x(index)) {
+                index--;
+            } else if (index < pointsCount - 2 && x > x(index + 1)) {
+                index++;
+            }
+            return index;
+        }
+        return SegmentInterpolation.segment(xs, DOUBLE, pointsCount, x);
+    }
+
+    private double interpolate(int segment, double x) {
+        if (uniform) {
+            return Interpolation.interpolate(x(segment), x(segment + 1), y(segment), y(segment + 1), x);
+        }
+        return SegmentInterpolation.interpolate(xs, ys, DOUBLE, segment, x);
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index));
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return x(index);
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return y(index);
+    }
+
+    // обход точек без создания FunctionPoint
+    public void forEachPoint(DoubleBiConsumer action) {
+        for (int i = 0; i < pointsCount; i++) {
+            action.accept(x(i), y(i));
+        }
+    }
+
+    public PointCursor cursor() {
+        return new FileCursor();
+    }
+
+    public void copyXs(double[] target) {
+        checkTarget(target);
+        if (uniform) {
+            for (int i = 0; i < pointsCount; i++) {
+                target[i] = x(i);
+            }
+        } else {
+            MemorySegment.copy(xs, DOUBLE, 0, target, 0, pointsCount);
+        }
+    }
+
+    public void copyYs(double[] target) {
+        checkTarget(target);
+        MemorySegment.copy(ys, DOUBLE, 0, target, 0, pointsCount);
+    }
+
+    private void checkTarget(double[] target) {
+        if (target.length < pointsCount) {
+            throw new IllegalArgumentException("Массив короче числа точек");
+        }
+    }
+
+    private final class FileCursor implements PointCursor {
+        private int index = -1;
+
+        public boolean next() {
+            if (index + 1 >= pointsCount) {
+                index = pointsCount;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public double getX() {
+            checkPosition();
+            return x(index);
+        }
+
+        public double getY() {
+            checkPosition();
+            return y(index);
+        }
+
+        private void checkPosition() {
+            if (index < 0 || index >= pointsCount) {
+                throw new IllegalStateException("Курсор не указывает на точку");
+            }
+        }
+    }
+
+    // неизменяемая копия в куче: отображение живет только до close(), а
+    // снимок freeze() должен оставаться действительным и после
+    public TabulatedFunction freeze() {
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        copyXs(xs);
+        copyYs(ys);
+        return new FrozenTabulatedFunction(xs, ys);
+    }
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Функция неизменяема");
+    }
+}
@@ -0,0 +1,368 @@
+package functions;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+// Табулированная функция с точками вне кучи: абсциссы и ординаты лежат в
+// одном MemorySegment (сначала capacity абсцисс, затем capacity ординат).
+// Сборщик мусора не видит ни точек, ни объектов под них, поэтому сотни больших
+// таблиц не удлиняют его паузы. Память принадлежит либо самой функции и
+// освобождается в close(), либо арене, переданной в конструктор, и живет,
+// пока открыта арена. После close() или закрытия арены обращения к точкам
+// выбрасывают IllegalStateException.
+public class OffHeapTabulatedFunction implements TabulatedFunction, BulkEvaluation, AutoCloseable {
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    // арена вызывающего; null - память принадлежит функции
+    private final Arena scope;
+    // собственная арена текущего сегмента: при росте закрывается вместе со старым сегментом
+    private Arena owned;
+    private boolean closed;
+    private MemorySegment xs;
+    private MemorySegment ys;
+    private int capacity;
+    private int pointsCount;
+
+    public OffHeapTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this(null, leftX, rightX, pointsCount);
+    }
+
+    public OffHeapTabulatedFunction(double leftX, double rightX, double[] values) {
+        this(null, leftX, rightX, values);
+    }
+
+    // arena - арена, которой принадлежит память, или null
+    public OffHeapTabulatedFunction(Arena arena, double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница области определения должна быть меньше правой");
+        }
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек не может быть меньше двух");
+        }
+
+        this.scope = arena;
+        allocate(pointsCount + 10);
+        this.pointsCount = pointsCount;
+
+        double step = (rightX - leftX) / (pointsCount - 1);
+        for (int i = 0; i < pointsCount; i++) {
+            xs.setAtIndex(DOUBLE, i, leftX + i * step);
+        }
+    }
+
+    public OffHeapTabulatedFunction(Arena arena, double leftX, double rightX, double[] values) {
+        this(arena, leftX, rightX, values.length);
+        MemorySegment.copy(values, 0, ys, DOUBLE, 0, pointsCount);
+    }
+
+    // память под pointsCount точек без заполнения; точки записывает copyOf
+    private OffHeapTabulatedFunction(Arena arena, int pointsCount) {
+        this.scope = arena;
+        allocate(pointsCount + 10);
+        this.pointsCount = pointsCount;
+    }
+
+    // копия точек другой функции; точки переносятся курсором, без массивов в куче
+    public static OffHeapTabulatedFunction copyOf(TabulatedFunction function) {
+        return copyOf(null, function);
+    }
+
+    public static OffHeapTabulatedFunction copyOf(Arena arena, TabulatedFunction function) {
+        OffHeapTabulatedFunction copy = new OffHeapTabulatedFunction(arena, function.getPointsCount());
+        PointCursor cursor = function.cursor();
+        double previous = Double.NaN;
+        for (int i = 0; cursor.next(); i++) {
+            double x = cursor.getX();
+            // отрицание сравнения отсекает и NaN
+            if (i > 0 && !(x - previous >= 1e-10)) {
+                copy.close();
+                throw new IllegalArgumentException("Нарушена упорядоченность точек");
+            }
+            copy.xs.setAtIndex(DOUBLE, i, x);
+            copy.ys.setAtIndex(DOUBLE, i, cursor.getY());
+            previous = x;
+        }
+        return copy;
+    }
+
+    // освобождает собственную память, память чужой арены освобождает ее
+    // владелец; повторный вызов ничего не делает
+    public void close() {
+        closed = true;
+        if (owned != null) {
+            owned.close();
+            owned = null;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Функция закрыта");
+        }
+    }
+
+    // Новый сегмент на capacity точек. Собственная арена создается общей
+    // (shared), чтобы таблицу могли читать несколько потоков; читатель,
+    // попавший на закрытый при росте сегмент, получит исключение, а не мусор.
+    private void allocate(int capacity) {
+        Arena arena = scope != null ? scope : Arena.ofShared();
+        MemorySegment block;
+        try {
+            block = arena.allocate(16L * capacity, 8);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            if (scope == null) {
+                arena.close();
+            }
+            throw e;
+        }
+
+        MemorySegment newXs = block.asSlice(0, 8L * capacity);
+        MemorySegment newYs = block.asSlice(8L * capacity, 8L * capacity);
+        if (xs != null) {
+            MemorySegment.copy(xs, 0, newXs, 0, 8L * pointsCount);
+            MemorySegment.copy(ys, 0, newYs, 0, 8L * pointsCount);
+        }
+        if (owned != null) {
+            owned.close();
+        }
+        owned = scope == null ? arena : null;
+        xs = newXs;
+        ys = newYs;
+        this.capacity = capacity;
+    }
+
+    // геометрический рост, как в ArrayTabulatedFunction; сегменты чужой арены
+    // освобождаются только вместе с ней, и при росте в полтора раза их общий
+    // размер не больше трех текущих
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.capacity) {
+            allocate(Math.max(capacity, this.capacity + (this.capacity >> 1)));
+        }
+    }
+
+    private double x(int index) {
+        return xs.getAtIndex(DOUBLE, index);
+    }
+
+    private double y(int index) {
+        return ys.getAtIndex(DOUBLE, index);
+    }
+
+    private void checkIndex(int index) {
+        checkOpen();
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException(index);
+        }
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public double getLeftDomainBorder() {
+        checkOpen();
+        return x(0);
+    }
+
+    public double getRightDomainBorder() {
+        checkOpen();
+        return x(pointsCount - 1);
+    }
+
+    public double getFunctionValue(double x) {
+        checkOpen();
+        // отрицание сравнений отсекает и NaN
+        if (!(x >= x(0) && x <= x(pointsCount - 1))) {
+            return Double.NaN;
+        }
+        int segment = SegmentInterpolation.segment(xs, DOUBLE, pointsCount, x);
+        return SegmentInterpolation.interpolate(xs, ys, DOUBLE, segment, x);
+    }
+
+    public void getFunctionValues(double[] xs, double[] out) {
+        getFunctionValues(xs, out, 0, xs.length);
+    }
+
+    // значения для части аргументов xs[from, to)
+    public void getFunctionValues(double[] xs, double[] out, int from, int to) {
+        checkOpen();
+        Interpolation.checkRange(xs, out, from, to);
+
+        boolean sorted = Interpolation.sorted(xs, from, to);
+        double left = x(0);
+        double right = x(pointsCount - 1);
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            if (!(x >= left && x <= right)) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            // по упорядоченным аргументам поиск продолжается с предыдущего отрезка
+            segment = sorted
+                    ? SegmentInterpolation.advanceSegment(this.xs, DOUBLE, pointsCount, segment, x)
+                    : SegmentInterpolation.segment(this.xs, DOUBLE, pointsCount, x);
+            out[i] = SegmentInterpolation.interpolate(this.xs, ys, DOUBLE, segment, x);
+        }
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index));
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        checkOrder(index, point.getX());
+        xs.setAtIndex(DOUBLE, index, point.getX());
+        ys.setAtIndex(DOUBLE, index, point.getY());
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return x(index);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        checkOrder(index, x);
+        xs.setAtIndex(DOUBLE, index, x);
+    }
+
+    private void checkOrder(int index, double x) throws InappropriateFunctionPointException {
+        if ((index > 0 && x <= x(index - 1)) ||
+                (index < pointsCount - 1 && x >= x(index + 1))) {
+            throw new InappropriateFunctionPointException("Нарушена упорядоченность точек");
+        }
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return y(index);
+    }
+
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+        ys.setAtIndex(DOUBLE, index, y);
+    }
+
+    public void deletePoint(int index) {
+        checkIndex(index);
+        if (pointsCount < 3) {
+            throw new IllegalStateException("Нельзя удалить точку: меньше 3 точек");
+        }
+
+        // сдвиг хвоста внутри сегмента; copy допускает перекрытие источника и приемника
+        long tail = 8L * (pointsCount - index - 1);
+        MemorySegment.copy(xs, 8L * (index + 1), xs, 8L * index, tail);
+        MemorySegment.copy(ys, 8L * (index + 1), ys, 8L * index, tail);
+        pointsCount--;
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        checkOpen();
+        double x = point.getX();
+        if (Double.isNaN(x)) {
+            throw new InappropriateFunctionPointException("X точки не является числом");
+        }
+        int insertIndex = lowerBound(x);
+        if ((insertIndex < pointsCount && Math.abs(x(insertIndex) - x) < 1e-10) ||
+                (insertIndex > 0 && Math.abs(x(insertIndex - 1) - x) < 1e-10)) {
+            throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+        }
+
+        ensureCapacity(pointsCount + 1);
+
+        long tail = 8L * (pointsCount - insertIndex);
+        MemorySegment.copy(xs, 8L * insertIndex, xs, 8L * (insertIndex + 1), tail);
+        MemorySegment.copy(ys, 8L * insertIndex, ys, 8L * (insertIndex + 1), tail);
+        xs.setAtIndex(DOUBLE, insertIndex, x);
+        ys.setAtIndex(DOUBLE, insertIndex, point.getY());
+        pointsCount++;
+    }
+
+    // номер первой точки с X не меньше x
+    private int lowerBound(double x) {
+        int left = 0;
+        int right = pointsCount;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (x(mid) < x) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    // неизменяемая копия в куче
+    public TabulatedFunction freeze() {
+        double[] frozenXs = new double[pointsCount];
+        double[] frozenYs = new double[pointsCount];
+        copyXs(frozenXs);
+        copyYs(frozenYs);
+        return new FrozenTabulatedFunction(frozenXs, frozenYs);
+    }
+
+    // обход точек без создания FunctionPoint
+    public void forEachPoint(DoubleBiConsumer action) {
+        checkOpen();
+        for (int i = 0; i < pointsCount; i++) {
+            action.accept(x(i), y(i));
+        }
+    }
+
+    public PointCursor cursor() {
+        checkOpen();
+        return new SegmentCursor();
+    }
+
+    public void copyXs(double[] target) {
+        checkTarget(target);
+        MemorySegment.copy(xs, DOUBLE, 0, target, 0, pointsCount);
+    }
+
+    public void copyYs(double[] target) {
+        checkTarget(target);
+        MemorySegment.copy(ys, DOUBLE, 0, target, 0, pointsCount);
+    }
+
+    private void checkTarget(double[] target) {
+        checkOpen();
+        if (target.length < pointsCount) {
+            throw new IllegalArgumentException("Массив короче числа точек");
+        }
+    }
+
+    private final class SegmentCursor implements PointCursor {
+        private int index = -1;
+
+        public boolean next() {
+            if (index + 1 >= pointsCount) {
+                index = pointsCount;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public double getX() {
+            checkPosition();
+            return x(index);
+        }
+
+        public double getY() {
+            checkPosition();
+            return y(index);
+        }
+
+        private void checkPosition() {
+            checkOpen();
+            if (index < 0 || index >= pointsCount) {
+                throw new IllegalStateException("Курсор не указывает на точку");
+            }
+        }
+    }
+}
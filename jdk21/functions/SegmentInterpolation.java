@@ -0,0 +1,49 @@
+package functions;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+// Поиск отрезка и линейная интерполяция по точкам в MemorySegment - то же,
+// что Interpolation для массивов; общие для реализаций, хранящих точки вне
+// кучи. X и Y точки i - элементы i сегментов xs и ys в раскладке layout.
+final class SegmentInterpolation {
+    private SegmentInterpolation() {
+    }
+
+    // наибольший номер i из [0, count - 2], для которого X точки i меньше x, или 0
+    static int segment(MemorySegment xs, ValueLayout.OfDouble layout, int count, double x) {
+        return bisect(xs, layout, 0, count - 2, x);
+    }
+
+    // номер отрезка, содержащего x, начиная поиск с отрезка from: шаги
+    // удваиваются, затем бинарный поиск в найденном диапазоне
+    static int advanceSegment(MemorySegment xs, ValueLayout.OfDouble layout, int count, int from, double x) {
+        int last = count - 2;
+        int lo = from;
+        int step = 1;
+        while (lo + step <= last && xs.getAtIndex(layout, lo + step) < x) {
+            lo += step;
+            step <<= 1;
+        }
+        return bisect(xs, layout, lo, Math.min(lo + step, last), x);
+    }
+
+    // последний отрезок из [lo, hi], начало которого меньше x (или lo)
+    private static int bisect(MemorySegment xs, ValueLayout.OfDouble layout, int lo, int hi, double x) {
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (xs.getAtIndex(layout, mid) < x) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    static double interpolate(MemorySegment xs, MemorySegment ys, ValueLayout.OfDouble layout,
+                              int segment, double x) {
+        return Interpolation.interpolate(xs.getAtIndex(layout, segment), xs.getAtIndex(layout, segment + 1),
+                ys.getAtIndex(layout, segment), ys.getAtIndex(layout, segment + 1), x);
+    }
+}
@@ -0,0 +1,151 @@
+package functions;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Интерполяция сразу для DOUBLES.length() аргументов (4 на AVX2, 8 на AVX-512).
+// Формула и проверки те же, что в Interpolation, и в том же порядке операций,
+// поэтому результат совпадает со скалярным побитно. Остаток, не кратный длине
+// вектора, считается скалярно.
+// Аргументы обрабатываются порциями по CHUNK: скалярный проход находит отрезки
+// и раскладывает их концы по массивам, векторный считает значения. Векторная
+// выборка по номерам (gather) не используется: на AVX2 она не быстрее скалярных
+// чтений, а JIT JDK 21 на AVX-512 компилирует ее с ошибками. На равномерной
+// сетке номера отрезков тоже считаются векторно.
+// Класс собирается отдельно от пакета из каталога vector (build.sh) и загружается
+// через рефлексию только при подключенном модуле jdk.incubator.vector
+final class VectorInterpolationKernel implements InterpolationKernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final double TWO_TO_52 = 0x1p52;
+    private static final int CHUNK = 256;
+
+    VectorInterpolationKernel() {
+        if (DOUBLES.length() < 2) {
+            throw new UnsupportedOperationException("Процессор не поддерживает векторные операции над double");
+        }
+    }
+
+    public void values(double[] xs, double[] ys, int count, double[] args, double[] out, int from, int to,
+                       boolean sorted) {
+        double left = xs[0];
+        double right = xs[count - 1];
+        int length = Math.min(to - from, CHUNK);
+        double[] x1 = new double[length];
+        double[] x2 = new double[length];
+        double[] y1 = new double[length];
+        double[] y2 = new double[length];
+        int segment = 0;
+        for (int start = from; start < to; start += CHUNK) {
+            int end = Math.min(start + CHUNK, to);
+            for (int i = start; i < end; i++) {
+                double x = args[i];
+                if (x >= left && x <= right) {
+                    segment = Interpolation.advanceSegment(xs, count, sorted ? segment : 0, x);
+                }
+                int k = i - start;
+                x1[k] = xs[segment];
+                x2[k] = xs[segment + 1];
+                y1[k] = ys[segment];
+                y2[k] = ys[segment + 1];
+            }
+            interpolate(x1, x2, y1, y2, args, out, start, end, left, right);
+        }
+    }
+
+    public void uniformValues(double origin, double step, int firstIndex, double[] ys, int offset, int count,
+                              double[] args, double[] out, int from, int to) {
+        double left = origin + firstIndex * step;
+        double right = origin + (firstIndex + count - 1) * step;
+        int length = Math.min(to - from, CHUNK);
+        int[] segments = new int[length];
+        double[] x1 = new double[length];
+        double[] x2 = new double[length];
+        double[] y1 = new double[length];
+        double[] y2 = new double[length];
+        for (int start = from; start < to; start += CHUNK) {
+            int end = Math.min(start + CHUNK, to);
+            uniformSegments(origin, step, firstIndex, count, args, segments, start, end);
+            for (int k = 0; k < end - start; k++) {
+                int segment = segments[k];
+                x1[k] = origin + (firstIndex + segment) * step;
+                x2[k] = origin + (firstIndex + segment + 1) * step;
+                y1[k] = ys[offset + segment];
+                y2[k] = ys[offset + segment + 1];
+            }
+            interpolate(x1, x2, y1, y2, args, out, start, end, left, right);
+        }
+    }
+
+    // out[i] для args[i], i из [from, to), по концам отрезка с номером i - from в x1, x2, y1, y2
+    private static void interpolate(double[] x1, double[] x2, double[] y1, double[] y2,
+                                    double[] args, double[] out, int from, int to, double left, double right) {
+        int i = from;
+        for (int bound = from + DOUBLES.loopBound(to - from); i < bound; i += DOUBLES.length()) {
+            int k = i - from;
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, args, i);
+            DoubleVector xa = DoubleVector.fromArray(DOUBLES, x1, k);
+            DoubleVector xb = DoubleVector.fromArray(DOUBLES, x2, k);
+            DoubleVector ya = DoubleVector.fromArray(DOUBLES, y1, k);
+            DoubleVector yb = DoubleVector.fromArray(DOUBLES, y2, k);
+
+            DoubleVector slope = yb.sub(ya).div(xb.sub(xa));
+            DoubleVector y = slope.mul(x.sub(xa)).add(ya);
+            // совпадение с узлом; левый узел важнее правого, как в скалярной версии
+            y = y.blend(yb, xb.sub(x).abs().lt(1e-10));
+            y = y.blend(ya, xa.sub(x).abs().lt(1e-10));
+            // вне области определения и NaN
+            VectorMask<Double> outside = x.compare(VectorOperators.LT, left)
+                    .or(x.compare(VectorOperators.GT, right))
+                    .or(x.test(VectorOperators.IS_NAN));
+            y.blend(Double.NaN, outside).intoArray(out, i);
+        }
+        for (; i < to; i++) {
+            double x = args[i];
+            int k = i - from;
+            out[i] = (x >= left && x <= right) ? Interpolation.interpolate(x1[k], x2[k], y1[k], y2[k], x) : Double.NaN;
+        }
+    }
+
+    // Номера отрезков args[from, to) в segments[0, to - from) делением, как в
+    // Interpolation.uniformSegment, но в дорожках double: целая часть неотрицательного
+    // числа меньше 2^52 получается сложением и вычитанием 2^52. Номера - целые меньше 2^31,
+    // поэтому сложение с firstIndex в double точное, как сложение int.
+    // Вне области определения - отрезок 0, чтобы чтение ys не вышло за массив
+    private static void uniformSegments(double origin, double step, int firstIndex, int count,
+                                        double[] args, int[] segments, int from, int to) {
+        double left = origin + firstIndex * step;
+        double right = origin + (firstIndex + count - 1) * step;
+        double[] lanes = new double[DOUBLES.length()];
+        int i = from;
+        for (int bound = from + DOUBLES.loopBound(to - from); i < bound; i += DOUBLES.length()) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, args, i);
+            VectorMask<Double> outside = x.compare(VectorOperators.LT, left)
+                    .or(x.compare(VectorOperators.GT, right))
+                    .or(x.test(VectorOperators.IS_NAN));
+            DoubleVector quotient = x.sub(left).div(step).blend(0, outside).min(count - 2);
+            DoubleVector index = quotient.add(TWO_TO_52).sub(TWO_TO_52);
+            index = index.blend(index.sub(1), index.compare(VectorOperators.GT, quotient));
+
+            // поправка на ошибку округления при делении
+            DoubleVector x1 = index.add(firstIndex).mul(step).add(origin);
+            DoubleVector x2 = index.add(firstIndex + 1).mul(step).add(origin);
+            VectorMask<Double> down = x.lt(x1).and(index.compare(VectorOperators.GT, 0));
+            VectorMask<Double> up = down.not().and(x.compare(VectorOperators.GT, x2))
+                    .and(index.compare(VectorOperators.LT, count - 2));
+            index = index.blend(index.sub(1), down).blend(index.add(1), up).blend(0, outside);
+
+            // преобразование дорожек double в int не на всех процессорах векторное
+            index.intoArray(lanes, 0);
+            for (int lane = 0; lane < lanes.length; lane++) {
+                segments[i - from + lane] = (int) lanes[lane];
+            }
+        }
+        for (; i < to; i++) {
+            double x = args[i];
+            segments[i - from] = (x >= left && x <= right)
+                    ? Interpolation.uniformSegment(origin, step, firstIndex, count, x) : 0;
+        }
+    }
+}